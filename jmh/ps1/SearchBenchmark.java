@@ -0,0 +1,55 @@
+package ps1;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the BFS on random instances of increasing size. Every instance
+ * comes from a fixed seed, so runs of different builds search exactly the
+ * same trees; ratio is the edge density of the DAG.
+ * @author Narasimman
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+  @Param({"42"})
+  public long seed;
+
+  @Param({"8", "10", "12", "14", "16"})
+  public int N;
+
+  @Param({"0.03"})
+  public double ratio;
+
+  private ProblemInstance instance;
+
+  @Setup
+  public void setUp() {
+    InstanceGenerator generator = new InstanceGenerator(N, seed);
+    generator.setEdgeDensity(ratio);
+    instance = generator.generate();
+  }
+
+  @Benchmark
+  public Statistics doBFS() {
+    StateSpaceSearch search = new StateSpaceSearch(instance);
+    search.doBFS();
+    return search.getStat();
+  }
+}
@@ -0,0 +1,85 @@
+package ps2;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the Davis Putnam procedure on random 3-SAT instances at clause to
+ * variable ratios below, at and above the satisfiability threshold of
+ * about 4.26. The instances come from fixed seeds and every call solves a
+ * fresh copy, since the procedure consumes its proposition set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DavisPutnamBenchmark {
+  @Param({"42"})
+  public long seed;
+
+  @Param({"30"})
+  public int N;
+
+  @Param({"3.0", "4.26", "5.0"})
+  public double ratio;
+
+  private PropositionSet prop;
+
+  @Setup
+  public void setUp() {
+    prop = randomThreeSat(N, (int) Math.round(ratio * N), new Random(seed));
+  }
+
+  @Benchmark
+  public boolean evaluate() {
+    return new DavisPutnam().evaluate(prop.clone());
+  }
+
+  @Benchmark
+  public boolean evaluateCDCL() {
+    return new DavisPutnam().evaluateCDCL(prop.clone());
+  }
+
+  /**
+   * Random 3-SAT: every clause has three distinct variables with random signs
+   * @param variables
+   * @param clauses
+   * @param r
+   * @return
+   */
+  static PropositionSet randomThreeSat(int variables, int clauses, Random r) {
+    PropositionSet prop = new PropositionSet();
+    for (int i = 0; i < clauses; i++) {
+      int[] chosen = new int[3];
+      for (int k = 0; k < 3; k++) {
+        int v;
+        boolean repeated;
+        do {
+          v = r.nextInt(variables) + 1;
+          repeated = false;
+          for (int j = 0; j < k; j++) {
+            repeated |= chosen[j] == v;
+          }
+        } while (repeated);
+        chosen[k] = v;
+        prop.addLiteral(r.nextBoolean() ? v : -v);
+      }
+      prop.endClause();
+    }
+    return prop;
+  }
+}
@@ -0,0 +1,53 @@
+package ps3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times building the decision tree and computing its expected utilities
+ * for N reviewers with costs and accuracies drawn from a fixed seed. The
+ * interactive prediction step is not included.
+ * @author Narasimman
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionTreeBenchmark {
+  @Param({"42"})
+  public long seed;
+
+  @Param({"1", "2", "3", "4", "5"})
+  public int N;
+
+  @Benchmark
+  public ChoiceNode buildDecisionTree() {
+    DecisionTree tree = new DecisionTree(50000, -2000, 0.2, randomReviewers(N, new Random(seed)));
+    return tree.buildDecisionTree();
+  }
+
+  private static List<Reviewer> randomReviewers(int count, Random r) {
+    Reviewer.resetIds();
+    List<Reviewer> reviewers = new ArrayList<Reviewer>();
+    for (int i = 0; i < count; i++) {
+      reviewers.add(new Reviewer(r.nextInt(500), 0.5 + r.nextDouble() / 2, r.nextDouble() / 2));
+    }
+    return reviewers;
+  }
+}
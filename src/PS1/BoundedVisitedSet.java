@@ -0,0 +1,74 @@
+package ps1;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Visited set that never holds more than a given number of bytes.
+ * Entries are kept in least recently used order and the oldest ones are
+ * dropped once the budget is used up. A dropped state may be expanded
+ * again later, which costs time but never correctness, since the search
+ * only uses the set to skip duplicates.
+ * @author Narasimman
+ *
+ */
+public class BoundedVisitedSet implements IVisitedSet {
+  // object headers, the map entry and its references, without the words
+  private static final int ENTRY_OVERHEAD = 88;
+
+  private final long bytesPerEntry;
+  private final long maxEntries;
+  private long evictions;
+  private final Map<TaskSet, Boolean> map;
+
+  /**
+   * Constructor
+   * @param numberOfTasks
+   * @param budget maximum number of bytes to hold
+   */
+  public BoundedVisitedSet(int numberOfTasks, long budget) {
+    this.bytesPerEntry = ENTRY_OVERHEAD + 8L * new TaskSet(numberOfTasks).wordCount();
+    this.maxEntries = Math.max(1, budget / bytesPerEntry);
+    this.map = new LinkedHashMap<TaskSet, Boolean>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<TaskSet, Boolean> eldest) {
+        if (size() > maxEntries) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Adds the set, or marks it as recently used if it is already present
+   */
+  @Override
+  public boolean add(TaskSet set) {
+    return map.put(set, Boolean.TRUE) == null;
+  }
+
+  @Override
+  public int size() {
+    return map.size();
+  }
+
+  /**
+   * Estimated bytes held, at most the budget
+   */
+  @Override
+  public long memoryUsage() {
+    return map.size() * bytesPerEntry;
+  }
+
+  /**
+   * Number of states dropped to stay within the budget
+   * @return
+   */
+  public long getEvictions() {
+    return evictions;
+  }
+}
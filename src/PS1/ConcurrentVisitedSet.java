@@ -0,0 +1,61 @@
+package ps1;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Visited set that can be shared by the workers of a parallel search.
+ * The sets are spread over independent segments by their hash, and each
+ * segment is a growable VisitedSet guarded by its own lock, so workers
+ * adding different states rarely wait for each other. Every segment starts
+ * small and grows with the states it holds, and a state that was stored is
+ * never reported as new again.
+ * @author Narasimman
+ *
+ */
+public class ConcurrentVisitedSet implements IVisitedSet {
+  private static final int SEGMENT_BITS = 6;
+
+  private final VisitedSet[] segments;
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Constructor
+   * @param numberOfTasks
+   */
+  public ConcurrentVisitedSet(int numberOfTasks) {
+    this.segments = new VisitedSet[1 << SEGMENT_BITS];
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new VisitedSet(numberOfTasks);
+    }
+  }
+
+  @Override
+  public boolean add(TaskSet set) {
+    // the segment comes from the high bits, the slot in it from the low ones
+    VisitedSet segment = segments[(int) (VisitedSet.mix(set.hashCode()) >>> (64 - SEGMENT_BITS))];
+    boolean added;
+    synchronized (segment) {
+      added = segment.add(set);
+    }
+    if (added) {
+      size.incrementAndGet();
+    }
+    return added;
+  }
+
+  @Override
+  public int size() {
+    return size.get();
+  }
+
+  @Override
+  public long memoryUsage() {
+    long bytes = 0;
+    for (VisitedSet segment : segments) {
+      synchronized (segment) {
+        bytes += segment.memoryUsage();
+      }
+    }
+    return bytes;
+  }
+}
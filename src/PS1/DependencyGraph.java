@@ -2,38 +2,61 @@ package ps1;
 
 import java.util.List;
 
-import org.jgraph.graph.DefaultEdge;
-import org.jgrapht.DirectedGraph;
-import org.jgrapht.graph.DefaultDirectedGraph;
-
 /**
  * A simple dependency graph class that generates the DAG 
- * from the list of tasks and dependency list
+ * from the list of tasks and dependency list.
+ * The pre-reqs of every task are kept as a bit vector, so that a
+ * precedence check is a single mask comparison, along with their number.
+ * The search only needs these, so no adjacency lists are built.
  * @author Narasimman
  *
  */
 public class DependencyGraph {
-  
-  private DirectedGraph<Task, DefaultEdge> graph =
-      new DefaultDirectedGraph<Task, DefaultEdge>(DefaultEdge.class);
-  
+  private final int numberOfTasks;
+  private final int[] inDegree;
+  private final TaskSet[] predecessorMasks;
+
   /**
    * Creates DAG from vertices and dependency list
-   * @param list
-   * @param dep
-   * @return
+   * @param list tasks with ids 0..n-1
+   * @param dep pairs X Y where X is a pre req for Y
    */
-  public DirectedGraph<Task, DefaultEdge> createDependencyGraph(List<Task> list, List<Integer> dep) {
-    
-    for(Task task : list) {
-      graph.addVertex(task);     
+  public DependencyGraph(List<Task> list, List<Integer> dep) {
+    int n = list.size();
+    this.numberOfTasks = n;
+    this.predecessorMasks = new TaskSet[n];
+    TaskSet empty = new TaskSet(n);
+    for (int i = 0; i < n; i++) {
+      predecessorMasks[i] = empty;
     }
-    
-    for(int i = 0; i < dep.size(); i+=2) {
-      graph.addEdge(list.get(dep.get(i)), list.get(dep.get(i + 1)));
+
+    // Drop repeated edges, the mask tells if an edge was already seen
+    this.inDegree = new int[n];
+    for (int i = 0; i + 1 < dep.size(); i += 2) {
+      int x = dep.get(i);
+      int y = dep.get(i + 1);
+      if (predecessorMasks[y].contains(x)) {
+        continue;
+      }
+      predecessorMasks[y] = predecessorMasks[y].with(x);
+      inDegree[y]++;
     }
-    //System.out.println(graph);
-    return graph;
   }
 
+  public int getNumberOfTasks() {
+    return numberOfTasks;
+  }
+
+  public int inDegreeOf(int taskId) {
+    return inDegree[taskId];
+  }
+
+  /**
+   * All the pre reqs of a task as a bit vector
+   * @param taskId
+   * @return
+   */
+  public TaskSet predecessorMask(int taskId) {
+    return predecessorMasks[taskId];
+  }
 }
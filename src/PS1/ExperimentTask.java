@@ -0,0 +1,59 @@
+package ps1;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork join task that runs a range of random experiments for one N.
+ * The range is split in halves until single experiments remain, so idle
+ * workers of the pool steal the remaining halves from busy ones.
+ * Each task returns the summary of its range, and the two halves are
+ * merged on the way back up, so no run is kept and no lock is shared.
+ * @author Narasimman
+ *
+ */
+public class ExperimentTask extends RecursiveTask<StatisticsSummary> {
+  private static final long serialVersionUID = 1L;
+
+  private final int N;
+  private final int from;
+  private final int to;
+  private final SearchMode mode;
+  private final boolean verbose;
+
+  /**
+   * Constructor
+   * @param N number of tasks of each random instance
+   * @param from first experiment, inclusive
+   * @param to last experiment, exclusive
+   * @param mode
+   * @param verbose print every run as it finishes
+   */
+  public ExperimentTask(int N, int from, int to, SearchMode mode, boolean verbose) {
+    this.N = N;
+    this.from = from;
+    this.to = to;
+    this.mode = mode;
+    this.verbose = verbose;
+  }
+
+  @Override
+  protected StatisticsSummary compute() {
+    if (to - from == 1) {
+      Statistics stat = MainDriver.runExperiment(N, mode);
+      if (verbose) {
+        MainDriver.displayRun(from, stat);
+      }
+      MainDriver.writeMetrics(N, from, mode, stat);
+      StatisticsSummary summary = new StatisticsSummary();
+      summary.add(stat);
+      return summary;
+    }
+    int mid = (from + to) >>> 1;
+    ExperimentTask left = new ExperimentTask(N, from, mid, mode, verbose);
+    ExperimentTask right = new ExperimentTask(N, mid, to, mode, verbose);
+    left.fork();
+    StatisticsSummary summary = right.compute();
+    summary.merge(left.join());
+    return summary;
+  }
+}
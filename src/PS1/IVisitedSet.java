@@ -0,0 +1,25 @@
+package ps1;
+
+/**
+ * Set of processed states keyed by their scheduled tasks,
+ * used by the search to skip duplicate states.
+ * @author Narasimman
+ *
+ */
+public interface IVisitedSet {
+
+  /**
+   * Adds the set of tasks if it is not already present
+   * @param set
+   * @return true if the set was not present before
+   */
+  public boolean add(TaskSet set);
+
+  public int size();
+
+  /**
+   * Approximate number of bytes held by the set
+   * @return
+   */
+  public long memoryUsage();
+}
@@ -0,0 +1,224 @@
+package ps1;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Memoized search over the downward closed subsets (ideals) of the DAG.
+ * The value and time of a schedule only depend on the set of tasks in it,
+ * so every ideal is expanded at most once whatever the order its tasks
+ * were added in. Sets are long bit masks and the memo table is indexed by
+ * the mask itself for up to MAX_DIRECT_TASKS tasks, or a primitive hash set
+ * above that. Subsets that cross the deadline are never created, and a
+ * subset is cut when its fractional knapsack bound cannot reach the target.
+ * @author Narasimman
+ *
+ */
+public class IdealSolver {
+  // 2^26 bits of direct table are 8 MB
+  private static final int MAX_DIRECT_TASKS = 26;
+  public static final int MAX_TASKS = 64;
+
+  private final int n;
+  private final int[] value;
+  private final int[] time;
+  private final long[] predMask;
+  private final int[] byRatio;
+  private final int targetValue;
+  private final int deadline;
+
+  private long[] seenTable;
+  private VisitedSet seenSet;
+  private int numberOfStates;
+  private int numberOfPrunedStates;
+  private long numberOfExpansions;
+  private final long[] expansionsByDepth;
+  private final long[] childrenByDepth;
+  private final long setupNanos;
+  private final int[] path;
+  private int pathLength;
+  private int resultValue;
+  private int resultTime;
+  private Statistics stat;
+
+  /**
+   * Constructor
+   * @param instance with at most MAX_TASKS tasks
+   */
+  public IdealSolver(ProblemInstance instance) {
+    long startTime = System.nanoTime();
+    final List<Task> tasks = instance.getTasks();
+    if (!supports(tasks.size())) {
+      throw new IllegalArgumentException("At most " + MAX_TASKS + " tasks are supported");
+    }
+    DependencyGraph g = new DependencyGraph(tasks, instance.getDependencies());
+    this.n = tasks.size();
+    this.value = new int[n];
+    this.time = new int[n];
+    this.predMask = new long[n];
+    for (Task task : tasks) {
+      int id = task.getId();
+      value[id] = task.getValue();
+      time[id] = task.getTime();
+      predMask[id] = n == 0 ? 0 : g.predecessorMask(id).word(0);
+    }
+
+    // Tasks with the best value per unit of time first
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer t1, Integer t2) {
+        return Long.compare((long) value[t2] * time[t1], (long) value[t1] * time[t2]);
+      }
+    });
+    this.byRatio = new int[n];
+    for (int i = 0; i < n; i++) {
+      byRatio[i] = order[i];
+    }
+
+    this.targetValue = instance.getTargetValue();
+    this.deadline = instance.getTargetDeadline();
+    this.path = new int[n];
+    this.expansionsByDepth = new long[n + 1];
+    this.childrenByDepth = new long[n + 1];
+    this.setupNanos = System.nanoTime() - startTime;
+  }
+
+  public static boolean supports(int numberOfTasks) {
+    return numberOfTasks <= MAX_TASKS;
+  }
+
+  /**
+   * Search for a subset of tasks that reaches the target within the deadline
+   * @return true if one is found
+   */
+  public boolean solve() {
+    this.stat = new Statistics();
+    long startTime = System.nanoTime();
+    if (n <= MAX_DIRECT_TASKS) {
+      seenTable = new long[Math.max(1, (1 << n) >>> 6)];
+    } else {
+      seenSet = new VisitedSet(n);
+    }
+    markSeen(0L);
+
+    boolean found = search(0L, 0, 0);
+    stat.addPhaseNanos(SearchPhase.SETUP, setupNanos);
+    stat.addPhaseNanos(SearchPhase.IDEALS, System.nanoTime() - startTime);
+    if (found) {
+      stat.setIsSuccess(true);
+      stat.setResult("[" + sequence() + "] " + resultValue + " " + resultTime);
+    }
+    stat.setNumberOfStates(numberOfStates);
+    stat.setNumberOfFrontierStates(numberOfStates);
+    stat.setNumberOfPrunedStates(numberOfPrunedStates);
+    stat.setNumberOfExpansions(numberOfExpansions);
+    stat.setDepthCounts(expansionsByDepth, childrenByDepth);
+    // the recursion holds one partially expanded subset per level
+    stat.setPeakFrontierSize(maxDepth() + 1);
+    stat.setVisitedSetBytes(seenTable != null ? (long) seenTable.length * 8 : seenSet.memoryUsage());
+    return found;
+  }
+
+  public Statistics getStat() {
+    return stat;
+  }
+
+  private boolean search(long mask, int currentValue, int currentTime) {
+    numberOfStates++;
+    if (currentValue >= targetValue) {
+      resultValue = currentValue;
+      resultTime = currentTime;
+      return true;
+    }
+    if (fractionalBound(mask, currentValue, currentTime) < targetValue) {
+      numberOfPrunedStates++;
+      return false;
+    }
+    numberOfExpansions++;
+    expansionsByDepth[pathLength]++;
+
+    for (int i = 0; i < n; i++) {
+      int t = byRatio[i];
+      long bit = 1L << t;
+      if ((mask & bit) != 0 || (predMask[t] & ~mask) != 0
+          || currentTime + time[t] > deadline) {
+        continue;
+      }
+      long child = mask | bit;
+      if (!markSeen(child)) {
+        continue;
+      }
+      childrenByDepth[pathLength]++;
+      path[pathLength++] = t;
+      if (search(child, currentValue + value[t], currentTime + time[t])) {
+        return true;
+      }
+      pathLength--;
+    }
+    return false;
+  }
+
+  /**
+   * Records the subset in the memo table
+   * @param mask
+   * @return true if it had not been seen before
+   */
+  private boolean markSeen(long mask) {
+    if (seenTable == null) {
+      return seenSet.add(mask);
+    }
+    int index = (int) (mask >>> 6);
+    long bit = 1L << mask;
+    if ((seenTable[index] & bit) != 0) {
+      return false;
+    }
+    seenTable[index] |= bit;
+    return true;
+  }
+
+  /**
+   * Fractional knapsack bound over the tasks outside the subset
+   */
+  private int fractionalBound(long mask, int currentValue, int currentTime) {
+    int remaining = deadline - currentTime;
+    int bound = currentValue;
+    for (int i = 0; i < n && remaining > 0; i++) {
+      int t = byRatio[i];
+      if ((mask & (1L << t)) != 0) {
+        continue;
+      }
+      if (time[t] <= remaining) {
+        bound += value[t];
+        remaining -= time[t];
+      } else {
+        bound += (int) ((long) value[t] * remaining / time[t]);
+        remaining = 0;
+      }
+    }
+    return bound;
+  }
+
+  private int maxDepth() {
+    int depth = expansionsByDepth.length - 1;
+    while (depth > 0 && expansionsByDepth[depth] == 0) {
+      depth--;
+    }
+    return depth;
+  }
+
+  private String sequence() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < pathLength; i++) {
+      if (i > 0) {
+        sb.append(" ");
+      }
+      sb.append(path[i]);
+    }
+    return sb.toString();
+  }
+}
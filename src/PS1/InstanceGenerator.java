@@ -0,0 +1,306 @@
+package ps1;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible generator of random problem instances.
+ * The tasks and the DAG are drawn from one seed and the target value,
+ * deadline and frontier size from another, so a fixed pair of seeds always
+ * gives the same instance. The edge density, the shape of the DAG and the
+ * distributions of the task values and times can be changed; the defaults
+ * are those of the original experiments.
+ * Edges are drawn by skipping ahead a geometric number of task pairs, so
+ * the work grows with the number of edges rather than with N squared, and
+ * write streams them to the file without keeping them in memory.
+ * @author Narasimman
+ *
+ */
+public class InstanceGenerator {
+  /**
+   * Shapes of the dependency DAG. Edges always go from an earlier to a
+   * later task of a random permutation, which keeps the graph acyclic.
+   */
+  public enum Shape {
+    // every pair of tasks has an edge with the given density
+    RANDOM,
+    // tasks are split in layers and edges only join consecutive layers
+    LAYERED,
+    // the tasks form a single path
+    CHAIN,
+    // a few root tasks are the only pre-reqs of all the other tasks
+    WIDE
+  }
+
+  /**
+   * Distributions of the task values and times between 1 and a maximum
+   */
+  public enum Distribution {
+    UNIFORM,
+    // many small values and a few large ones
+    SKEWED,
+    CONSTANT;
+
+    int sample(Random r, int max) {
+      switch (this) {
+      case SKEWED:
+        double u = r.nextDouble();
+        return 1 + (int) ((max - 1) * u * u);
+      case CONSTANT:
+        return max;
+      default:
+        return r.nextInt(max) + 1;
+      }
+    }
+
+    /**
+     * Expected value of a sample, used to scale the target and deadline
+     */
+    double mean(int max) {
+      switch (this) {
+      case SKEWED:
+        return 1 + (max - 1) / 3.0;
+      case CONSTANT:
+        return max;
+      default:
+        return (max + 1) / 2.0;
+      }
+    }
+  }
+
+  /**
+   * Receives the edges as they are drawn
+   */
+  private interface EdgeSink {
+    void edge(int from, int to);
+  }
+
+  private final int numberOfTasks;
+  private final long seed;
+  private long targetSeed;
+  private double edgeDensity = 0.03;
+  private Shape shape = Shape.RANDOM;
+  private int numberOfLayers;
+  private Distribution valueDistribution = Distribution.UNIFORM;
+  private Distribution timeDistribution = Distribution.UNIFORM;
+  private int maxValue;
+  private int maxTime;
+
+  /**
+   * Constructor with the defaults of the original experiments
+   * @param numberOfTasks
+   * @param seed of the tasks and the DAG, also used for the target
+   */
+  public InstanceGenerator(int numberOfTasks, long seed) {
+    this.numberOfTasks = numberOfTasks;
+    this.seed = seed;
+    this.targetSeed = seed;
+    this.numberOfLayers = Math.max(1, (int) Math.round(Math.sqrt(numberOfTasks)));
+    this.maxValue = Math.max(1, numberOfTasks - 1);
+    this.maxTime = Math.max(1, numberOfTasks - 1);
+  }
+
+  public void setTargetSeed(long targetSeed) {
+    this.targetSeed = targetSeed;
+  }
+
+  /**
+   * Probability of an edge between two tasks that the shape allows to be joined
+   * @param edgeDensity between 0 and 1
+   */
+  public void setEdgeDensity(double edgeDensity) {
+    if (edgeDensity < 0 || edgeDensity > 1) {
+      throw new IllegalArgumentException("Edge density must be between 0 and 1");
+    }
+    this.edgeDensity = edgeDensity;
+  }
+
+  public void setShape(Shape shape) {
+    this.shape = shape;
+  }
+
+  /**
+   * Number of layers of the LAYERED shape, the square root of N by default
+   * @param numberOfLayers
+   */
+  public void setNumberOfLayers(int numberOfLayers) {
+    this.numberOfLayers = Math.max(1, numberOfLayers);
+  }
+
+  public void setValueDistribution(Distribution distribution, int maxValue) {
+    this.valueDistribution = distribution;
+    this.maxValue = Math.max(1, maxValue);
+  }
+
+  public void setTimeDistribution(Distribution distribution, int maxTime) {
+    this.timeDistribution = distribution;
+    this.maxTime = Math.max(1, maxTime);
+  }
+
+  /**
+   * Builds the instance in memory
+   * @return
+   */
+  public ProblemInstance generate() {
+    int[] targets = drawTargets();
+    Random r = new Random(seed);
+    List<Task> tasks = new ArrayList<Task>(numberOfTasks);
+    for (int i = 0; i < numberOfTasks; i++) {
+      int value = valueDistribution.sample(r, maxValue);
+      int time = timeDistribution.sample(r, maxTime);
+      tasks.add(new Task(i, value, time));
+    }
+
+    final List<Integer> dep = new ArrayList<Integer>();
+    drawEdges(r, new EdgeSink() {
+      @Override
+      public void edge(int from, int to) {
+        dep.add(from);
+        dep.add(to);
+      }
+    });
+    return new ProblemInstance(tasks, dep, targets[0], targets[1], targets[2]);
+  }
+
+  /**
+   * Writes the instance in the input file format while it is drawn,
+   * without holding the edges in memory. Gives the same instance as generate.
+   * @param outputFile
+   * @throws FileNotFoundException
+   */
+  public void write(String outputFile) throws FileNotFoundException {
+    int[] targets = drawTargets();
+    Random r = new Random(seed);
+    try (final PrintWriter out = new PrintWriter(outputFile)) {
+      //N targetValue targetDeadline max
+      out.println(numberOfTasks + " " + targets[0] + " " + targets[1] + " " + targets[2]);
+      for (int i = 0; i < numberOfTasks; i++) {
+        int value = valueDistribution.sample(r, maxValue);
+        int time = timeDistribution.sample(r, maxTime);
+        out.println(i + " " + value + " " + time);
+      }
+      drawEdges(r, new EdgeSink() {
+        @Override
+        public void edge(int from, int to) {
+          out.println(from + " " + to);
+        }
+      });
+    }
+  }
+
+  /**
+   * Target value and deadline around half of the expected total value and
+   * time of the tasks, and the maximum frontier size, as in the problem.
+   * The totals grow with N squared, so for large N the target and deadline
+   * are capped at the largest int.
+   * @return
+   */
+  private int[] drawTargets() {
+    Random r = new Random(targetSeed);
+    int N = numberOfTasks;
+    int targetValue = drawAroundHalf(r, (double) N * valueDistribution.mean(maxValue));
+    int targetDeadline = drawAroundHalf(r, (double) N * timeDistribution.mean(maxTime));
+    int maxFrontier = r.nextInt(Math.max(1, N - 3)) + 3;
+    return new int[] {targetValue, targetDeadline, maxFrontier};
+  }
+
+  private int drawAroundHalf(Random r, double total) {
+    double spread = 2 / Math.sqrt(numberOfTasks);
+    long rangeFrom = Math.round(total * (1 - spread) / 2);
+    long rangeTo = Math.round(total * (1 + spread) / 2);
+    long drawn = rangeFrom + (long) (r.nextDouble() * Math.max(1, rangeTo - rangeFrom));
+    return (int) Math.max(0, Math.min(Integer.MAX_VALUE, drawn));
+  }
+
+  private void drawEdges(Random r, EdgeSink sink) {
+    int N = numberOfTasks;
+    // Random permutation that orders the tasks of the DAG
+    int[] P = new int[N];
+    for (int i = 0; i < N; i++) {
+      P[i] = i;
+    }
+    for (int i = N; i > 1; i--) {
+      int j = r.nextInt(i);
+      int swap = P[i - 1];
+      P[i - 1] = P[j];
+      P[j] = swap;
+    }
+
+    switch (shape) {
+    case CHAIN:
+      for (int I = 0; I < N - 1; I++) {
+        sink.edge(P[I], P[I + 1]);
+      }
+      break;
+    case LAYERED:
+      for (int I = 0; I < N; I++) {
+        int layer = (int) ((long) I * numberOfLayers / N);
+        drawRow(r, sink, P, I, layerStart(layer + 1), layerStart(layer + 2));
+      }
+      break;
+    case WIDE:
+      int roots = Math.max(1, (int) Math.sqrt(N));
+      for (int I = 0; I < roots; I++) {
+        drawRow(r, sink, P, I, roots, N);
+      }
+      break;
+    default:
+      for (int I = 0; I < N - 1; I++) {
+        drawRow(r, sink, P, I, I + 1, N);
+      }
+    }
+  }
+
+  private int layerStart(int layer) {
+    // smallest position whose layer is at least the given one
+    long n = (long) layer * numberOfTasks;
+    return (int) Math.min(numberOfTasks, (n + numberOfLayers - 1) / numberOfLayers);
+  }
+
+  /**
+   * Joins the task at position I to each task at positions from..to-1 with
+   * the edge density, jumping over the pairs without an edge in one draw
+   */
+  private void drawRow(Random r, EdgeSink sink, int[] P, int I, int from, int to) {
+    if (edgeDensity <= 0) {
+      return;
+    }
+    double logMiss = Math.log(1 - edgeDensity);
+    for (long J = from; J < to; J++) {
+      if (edgeDensity < 1) {
+        J += (long) Math.floor(Math.log(1 - r.nextDouble()) / logMiss);
+        if (J >= to) {
+          break;
+        }
+      }
+      sink.edge(P[I], P[(int) J]);
+    }
+  }
+
+  /**
+   * Writes a random instance to a file.
+   * Usage: InstanceGenerator N seed outputFile [random|layered|chain|wide] [density]
+   * @param args
+   */
+  public static void main(String[] args) {
+    if (args.length < 3) {
+      System.out.println("Invalid number of arguments. Expected <N seed outputFile> [random|layered|chain|wide] [density]");
+      System.exit(-1);
+    }
+    InstanceGenerator generator = new InstanceGenerator(Integer.parseInt(args[0]), Long.parseLong(args[1]));
+    if (args.length > 3) {
+      generator.setShape(Shape.valueOf(args[3].toUpperCase()));
+    }
+    if (args.length > 4) {
+      generator.setEdgeDensity(Double.parseDouble(args[4]));
+    }
+    try {
+      generator.write(args[2]);
+    } catch (FileNotFoundException e) {
+      System.out.println("Output file cannot be created: " + e.getMessage());
+    }
+  }
+}
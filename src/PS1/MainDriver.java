@@ -1,16 +1,10 @@
 package ps1;
 
-import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.Random;
-import java.util.Scanner;
-
-import org.jgraph.graph.DefaultEdge;
-import org.jgrapht.DirectedGraph;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Main driver that generates random samples as per the stated problem
@@ -19,119 +13,174 @@ import org.jgrapht.DirectedGraph;
  *
  */
 public class MainDriver {
-  private List<Task> taskList = new ArrayList<Task>();
-  private DirectedGraph<Task, DefaultEdge> graph;
+  private ProblemInstance instance;
   private StateSpaceSearch search;
-  private static Statistics stats = new Statistics();
+  private long setupNanos;
+  // bytes of visited states each bounded search may hold
+  private static long memoryBudget = Runtime.getRuntime().maxMemory() /
+      (4 * Runtime.getRuntime().availableProcessors());
+  // per run records are written here when set
+  private static MetricsWriter metrics;
 
   /**
    * Constructor
+   * @param instance
+   */
+  public MainDriver(ProblemInstance instance) {
+    this.instance = instance;
+    long startTime = System.nanoTime();
+    search = new StateSpaceSearch(instance);
+    setupNanos = System.nanoTime() - startTime;
+  }
+
+  /**
+   * Constructor, the setup time includes reading the file
    * @param inputFile
    */
   public MainDriver(String inputFile) {
-    Task start = new Task(-1, 0, 0);
-
-    try(Scanner scanner = new Scanner(new File(inputFile));) {      
-      int numberOfTasks = scanner.nextInt();
-      int targetValue = scanner.nextInt();
-      int targetDeadline = scanner.nextInt();
-      int maxFrontierSize = scanner.nextInt();
-
-      Task goal = new Task(-2, targetValue, targetDeadline);
-      for (int i = 0; i < numberOfTasks; i ++) {
-        int id = scanner.nextInt();
-        int value = scanner.nextInt();
-        int time = scanner.nextInt();
-        Task task = new Task(id, value, time);
-        taskList.add(task);
-      }
-
-      List<Integer> dep = new ArrayList<Integer>();
-
-      // X is a pre req for Y
-      while(scanner.hasNextInt()) {
-        dep.add(scanner.nextInt());        
-      }
-
-      DependencyGraph g = new DependencyGraph();      
-      graph = g.createDependencyGraph(taskList, dep);
-
-      search = new StateSpaceSearch(taskList, graph);      
-      search.initialize(start, goal, maxFrontierSize);      
-      scanner.close();
+    try {
+      long startTime = System.nanoTime();
+      instance = ProblemInstance.read(inputFile);
+      search = new StateSpaceSearch(instance);
+      setupNanos = System.nanoTime() - startTime;
     } catch (FileNotFoundException e) {
       System.out.println("Input file not found by the Driver");
     }
   }
 
   /**
-   * Run method to initiate search and collect stats
+   * Run method to initiate search and return its stats.
+   * The allocated bytes are those of the calling thread, so the states
+   * created by other workers of a parallel search are not counted.
+   * @param mode
+   * @return
    */
-  private void run() {
-    search.doBFS();
-    stats.addToList(search.getStat());
+  private Statistics run(SearchMode mode) {
+    long allocatedBefore = allocatedBytes();
+    long startTime = System.nanoTime();
+    Statistics stat = search(mode);
+    stat.setElapsedNanos(System.nanoTime() - startTime);
+    stat.addPhaseNanos(SearchPhase.SETUP, setupNanos);
+    if (allocatedBefore >= 0) {
+      stat.setAllocatedBytes(allocatedBytes() - allocatedBefore);
+    }
+    return stat;
   }
 
   /**
-   * Display the statistics collected
+   * Bytes allocated so far by the current thread, or -1 if the JVM
+   * does not provide the HotSpot extension of the thread bean
+   * @return
    */
-  static void displayResult(boolean verbose) {
-    int count = 0;
-    List<Statistics> statList = stats.getStats();
-    int numberOfSuccess = 0;
-    int minFStates = Integer.MAX_VALUE;
-    int maxFStates = 0;
-    int totalFStates = 0;
-    int minStates = Integer.MAX_VALUE;
-    int maxStates = 0;
-    int totalStates = 0;    
-    for(Statistics stat : stats.getStats()) {
-      int fStates = stat.getNumberOfFrontierStates();
-      int states = stat.getNumberOfStates();
-      if(verbose) {
-        System.out.println("------------------------");
-        System.out.println("Result " + count);
-        System.out.println("Search Output: " + stat.getResult());
-        System.out.println("Is search successful: " + stat.getIsSuccess());      
-        System.out.println("Total Number of states in the tree: " + stat.getNumberOfStates());
-        System.out.println("Total Number of frontier states during searching: " + fStates);
-        System.out.println("------------------------");
-      }
-      if(stat.getIsSuccess()) {
-        numberOfSuccess++;
+  private static long allocatedBytes() {
+    ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) bean;
+      if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+        return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
       }
+    }
+    return -1;
+  }
 
-      if(maxFStates < fStates) {
-        maxFStates = fStates;
+  private Statistics search(SearchMode mode) {
+    switch (mode) {
+    case BEST_FIRST:
+      search.doBestFirst();
+      break;
+    case BRANCH_AND_BOUND:
+      search.doBranchAndBound();
+      break;
+    case PARALLEL_BFS:
+      search.doParallelBFS();
+      break;
+    case IDEALS:
+      if (IdealSolver.supports(instance.getTasks().size())) {
+        IdealSolver solver = new IdealSolver(instance);
+        solver.solve();
+        return solver.getStat();
       }
+      // bit masks are too small for this instance, use the tree search
+      search.doBranchAndBound();
+      break;
+    case MEMORY_BOUNDED:
+      search.doMemoryBounded(memoryBudget);
+      break;
+    default:
+      search.doBFS();
+    }
+    return search.getStat();
+  }
 
-      if(minFStates > fStates) {
-        minFStates = fStates;
-      }
-      if(maxStates < states) {
-        maxStates = states;
-      }
+  /**
+   * Generate one random instance of size N in memory and search it.
+   * @param N
+   * @param mode
+   * @return stats of the search
+   */
+  static Statistics runExperiment(int N, SearchMode mode) {
+    MainDriver driver = new MainDriver(MainDriver.generateRandomDAG(N));
+    return driver.run(mode);
+  }
 
-      if(minStates > states) {
-        minStates = states;
-      }
+  /**
+   * Display the statistics of one run
+   * @param count
+   * @param stat
+   */
+  static synchronized void displayRun(int count, Statistics stat) {
+    System.out.println("------------------------");
+    System.out.println("Result " + count);
+    System.out.println("Search Output: " + stat.getResult());
+    System.out.println("Is search successful: " + stat.getIsSuccess());
+    System.out.println("Total Number of states in the tree: " + stat.getNumberOfStates());
+    System.out.println("Total Number of frontier states during searching: " + stat.getNumberOfFrontierStates());
+    System.out.println("Total Number of states pruned by the bound: " + stat.getNumberOfPrunedStates());
+    System.out.println("Memory used by the visited set (bytes): " + stat.getVisitedSetBytes());
+    System.out.println("Visited states dropped to stay in the memory budget: " + stat.getNumberOfEvictedStates());
+    System.out.println("Search time (ms): " + stat.getElapsedNanos() / 1e6);
+    System.out.println("States expanded per second: " + (long) stat.getExpansionsPerSecond());
+    System.out.println("Peak number of states in the frontier: " + stat.getPeakFrontierSize());
+    System.out.println("Bytes allocated by the search: " + stat.getAllocatedBytes());
+    System.out.println("------------------------");
+  }
 
-      totalFStates += fStates;
-      totalStates += states;
-      count++;
+  /**
+   * Write the record of one run if a metrics file was given
+   * @param N
+   * @param count
+   * @param mode
+   * @param stat
+   */
+  static void writeMetrics(int N, int count, SearchMode mode, Statistics stat) {
+    if (metrics != null) {
+      metrics.write(N, count, mode, stat);
     }
+  }
 
-    double fSuccess = (double)numberOfSuccess/(double)statList.size() * 100;
-    double avgFStates = (double)totalFStates / (double) statList.size();
-    double avgStates = (double)totalStates / (double) statList.size();
-    System.out.println("Total Number of Successful searches: " + numberOfSuccess);
-    System.out.println("Total Number of searches: " + statList.size());    
+  /**
+   * Display the statistics collected
+   * @param summary
+   */
+  static void displayResult(StatisticsSummary summary) {
+    long runs = summary.getNumberOfRuns();
+    double fSuccess = runs == 0 ? 0 : (double) summary.getNumberOfSuccess() / runs * 100;
+    System.out.println("Total Number of Successful searches: " + summary.getNumberOfSuccess());
+    System.out.println("Total Number of searches: " + runs);
     System.out.println("Fraction of successful searches(%): " +  fSuccess);
-    System.out.println("Min | Max | Avg number of states in State Space Tree: " +
-        minStates + " | " + maxStates + " | " + avgStates);
-    System.out.println("Min | Max | Avg number of FRONTIER states in search process: " +
-        minFStates + " | " + maxFStates + " | " + avgFStates);
-    
+    System.out.println("Min | Max | Avg | StdDev number of states in State Space Tree: " + summary.getStates());
+    System.out.println("Min | Max | Avg | StdDev number of FRONTIER states in search process: " +
+        summary.getFrontierStates());
+    System.out.println("p50 | p90 | p99 number of states in State Space Tree: " +
+        percentiles(summary.getStates()));
+    System.out.println("Min | Max | Avg | StdDev search time (us): " + summary.getElapsedMicros());
+    System.out.println("p50 | p90 | p99 search time (us): " + percentiles(summary.getElapsedMicros()));
+    System.out.println("Min | Max | Avg | StdDev states expanded per second: " +
+        summary.getExpansionsPerSecond());
+  }
+
+  private static String percentiles(RunningStat stat) {
+    return stat.getPercentile(0.5) + " | " + stat.getPercentile(0.9) + " | " + stat.getPercentile(0.99);
   }
 
   /**
@@ -139,45 +188,22 @@ public class MainDriver {
    * @param N
    * @return
    */
-  private static String generateRandomDAG(int N) {
-    StringBuffer sb = new StringBuffer();
-
-    Long rangeFrom = Math.round(Math.pow(N, 2) * (1 - (2/Math.sqrt(N)))/4);
-    Long rangeTo = Math.round(Math.pow(N, 2) * (1 + (2/Math.sqrt(N)))/4);
-
-    Random r = new Random();
-    int targetValue = r.nextInt(rangeTo.intValue() - 
-        rangeFrom.intValue()) + rangeFrom.intValue();
-    int targetDeadline = r.nextInt(rangeTo.intValue() - 
-        rangeFrom.intValue()) + rangeFrom.intValue();
-    int maxFrontier = r.nextInt(N - 3) + 3;
-
-    //N targetValue targetDeadline max
-    sb.append(N + " " + targetValue + " " + 
-        targetDeadline + " " + maxFrontier + "\n");
-    List<Integer> P = new ArrayList<Integer>();
-    Random r1 = new Random(N);
-
-    // Task value time
-    for (int i = 0; i < N; i++) {
-      int value = r1.nextInt(N-1) + 1;
-      int time = r1.nextInt(N-1) + 1;
-      P.add(i + 1);
-      sb.append(i + " " + value + " " + time + "\n");      
-    }
-
-    /* Construct a random permutation */
-    Collections.shuffle(P, r1);
+  static ProblemInstance generateRandomDAG(int N) {
+    return generateRandomDAG(N, new Random());
+  }
 
-    // Dependency tree
-    for (int I=0; I < N-1; I++) {
-      for (int J = I+1; J < N; J++) {
-        if(r1.nextInt(100) < 3) {
-          sb.append((P.get(I) -1 ) + " " + (P.get(J) - 1) + "\n");
-        }
-      }
-    }
-    return sb.toString();
+  /**
+   * Construct a random DAG whose target and frontier size are drawn from
+   * the given generator, so that a seeded generator gives the same instance.
+   * As in the problem, the tasks and the DAG only depend on N.
+   * @param N
+   * @param r
+   * @return
+   */
+  static ProblemInstance generateRandomDAG(int N, Random r) {
+    InstanceGenerator generator = new InstanceGenerator(N, N);
+    generator.setTargetSeed(r.nextLong());
+    return generator.generate();
   }
 
   /**
@@ -185,41 +211,53 @@ public class MainDriver {
    */
   public static void main(String[] args) {
     if(args.length < 2) {
-      System.out.println("Invalid number of arguments. Expected <N,E>");
+      System.out.println("Invalid number of arguments. Expected <N,E> [verbose] [bfs|best|bnb|parallel|dp|bounded] [budget=<MB>] [metrics=<file.csv|file.json>]");
       System.exit(-1);
     }
 
     int N = Integer.parseInt(args[0]);
     int E = Integer.parseInt(args[1]);
     boolean verbose = false;
+    SearchMode mode = SearchMode.BFS_ID;
 
-    if(args.length > 2 && args[2].equals("verbose")) {
-      verbose = true;
+    for(int i = 2; i < args.length; i++) {
+      if(args[i].equals("verbose")) {
+        verbose = true;
+      } else if(args[i].startsWith("budget=")) {
+        memoryBudget = Long.parseLong(args[i].substring("budget=".length())) << 20;
+      } else if(args[i].startsWith("metrics=")) {
+        try {
+          metrics = new MetricsWriter(args[i].substring("metrics=".length()));
+        } catch (FileNotFoundException e) {
+          System.out.println("Metrics file cannot be created: " + e.getMessage());
+          System.exit(-1);
+        }
+      } else if(SearchMode.fromName(args[i]) != null) {
+        mode = SearchMode.fromName(args[i]);
+      } else {
+        System.out.println("Unknown argument: " + args[i]);
+        System.exit(-1);
+      }
     }
 
-    String inputFile = "input1";
-    PrintWriter out = null;
-    String input;
+    // Experiments are independent, run them on all the cores
+    ForkJoinPool pool = new ForkJoinPool();
     for(int i = N; i < N + 5; i++) {
-      stats = new Statistics();
+      StatisticsSummary summary = new StatisticsSummary();
       System.out.println("For N = " + i);
       System.out.println("===============================");
-      for (int k = 0; k < E; k++) {
-        input = MainDriver.generateRandomDAG(i);
-        try {
-          out = new PrintWriter(inputFile);
-          out.write(input);        
-        } catch (FileNotFoundException e) {
-          System.out.println("Problem in generating input file");
-        } finally {      
-          out.close();
-        }
-
-        MainDriver driver = new MainDriver(inputFile);
-        driver.run();
+      if(E > 0) {
+        summary = pool.invoke(new ExperimentTask(i, 0, E, mode, verbose));
+      }
+      MainDriver.displayResult(summary);
+      if(metrics != null) {
+        metrics.writeSummary(i, mode, summary);
       }
-      MainDriver.displayResult(verbose);
       System.out.println("===============================");
     }
+    pool.shutdown();
+    if(metrics != null) {
+      metrics.close();
+    }
   }
 }
@@ -0,0 +1,206 @@
+package ps1;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+
+/**
+ * Writes the statistics of every run to a file, one record per line.
+ * Files ending in .json get one JSON object per line, anything else is
+ * written as CSV with a header. Runs finish on several threads, so the
+ * records are written under a lock in the order they finish.
+ * The summary of all the runs of each N, with the mean and standard
+ * deviation of every metric, goes to a second file in the same format
+ * whose name ends in -summary before the extension.
+ * @author Narasimman
+ *
+ */
+public class MetricsWriter {
+  // metrics of the summary records, with their names in the CSV header
+  private static final String[] SUMMARY_METRICS =
+      {"states", "frontier_states", "elapsed_us", "expansions_per_second"};
+
+  private final PrintWriter out;
+  private final PrintWriter summaryOut;
+  private final boolean json;
+
+  /**
+   * Constructor
+   * @param file
+   * @throws FileNotFoundException
+   */
+  public MetricsWriter(String file) throws FileNotFoundException {
+    this.out = new PrintWriter(file);
+    try {
+      this.summaryOut = new PrintWriter(summaryFile(file));
+    } catch (FileNotFoundException e) {
+      out.close();
+      throw e;
+    }
+    this.json = file.endsWith(".json");
+    if (!json) {
+      writeHeader();
+      writeSummaryHeader();
+    }
+  }
+
+  private static String summaryFile(String file) {
+    int dot = file.lastIndexOf('.');
+    int slash = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\'));
+    if (dot <= slash) {
+      return file + "-summary";
+    }
+    return file.substring(0, dot) + "-summary" + file.substring(dot);
+  }
+
+  private void writeHeader() {
+    StringBuilder sb = new StringBuilder("n,run,mode,success,result,states,expansions,"
+        + "frontier_states,peak_frontier,pruned_states,visited_set_bytes,evicted_states,"
+        + "allocated_bytes,elapsed_ns,expansions_per_second");
+    for (SearchPhase phase : SearchPhase.values()) {
+      sb.append(",").append(phase.getName()).append("_ns");
+    }
+    sb.append(",branching_by_depth");
+    out.println(sb);
+  }
+
+  private void writeSummaryHeader() {
+    StringBuilder sb = new StringBuilder("n,mode,runs,success");
+    for (String metric : SUMMARY_METRICS) {
+      for (String field : new String[] {"min", "max", "mean", "stddev", "p50", "p90", "p99"}) {
+        sb.append(',').append(metric).append('_').append(field);
+      }
+    }
+    summaryOut.println(sb);
+  }
+
+  /**
+   * Writes the record of one run
+   * @param N number of tasks of the instance
+   * @param run index of the run
+   * @param mode
+   * @param stat
+   */
+  public synchronized void write(int N, int run, SearchMode mode, Statistics stat) {
+    out.println(json ? toJson(N, run, mode, stat) : toCsv(N, run, mode, stat));
+  }
+
+  /**
+   * Writes the summary of all the runs of one N
+   * @param N number of tasks of the instances
+   * @param mode
+   * @param summary
+   */
+  public synchronized void writeSummary(int N, SearchMode mode, StatisticsSummary summary) {
+    RunningStat[] stats = {summary.getStates(), summary.getFrontierStates(),
+        summary.getElapsedMicros(), summary.getExpansionsPerSecond()};
+    StringBuilder sb = new StringBuilder();
+    if (json) {
+      sb.append("{\"n\":").append(N)
+        .append(",\"mode\":\"").append(mode.getName()).append('"')
+        .append(",\"runs\":").append(summary.getNumberOfRuns())
+        .append(",\"success\":").append(summary.getNumberOfSuccess());
+      for (int i = 0; i < stats.length; i++) {
+        RunningStat stat = stats[i];
+        sb.append(",\"").append(SUMMARY_METRICS[i]).append("\":{")
+          .append("\"min\":").append(stat.getMin())
+          .append(",\"max\":").append(stat.getMax())
+          .append(",\"mean\":").append(format(stat.getMean()))
+          .append(",\"stddev\":").append(format(stat.getStdDev()))
+          .append(",\"p50\":").append(stat.getPercentile(0.5))
+          .append(",\"p90\":").append(stat.getPercentile(0.9))
+          .append(",\"p99\":").append(stat.getPercentile(0.99))
+          .append('}');
+      }
+      sb.append('}');
+    } else {
+      sb.append(N).append(',').append(mode.getName())
+        .append(',').append(summary.getNumberOfRuns())
+        .append(',').append(summary.getNumberOfSuccess());
+      for (RunningStat stat : stats) {
+        sb.append(',').append(stat.getMin())
+          .append(',').append(stat.getMax())
+          .append(',').append(format(stat.getMean()))
+          .append(',').append(format(stat.getStdDev()))
+          .append(',').append(stat.getPercentile(0.5))
+          .append(',').append(stat.getPercentile(0.9))
+          .append(',').append(stat.getPercentile(0.99));
+      }
+    }
+    summaryOut.println(sb);
+  }
+
+  public synchronized void close() {
+    out.close();
+    summaryOut.close();
+  }
+
+  private String toCsv(int N, int run, SearchMode mode, Statistics stat) {
+    StringBuilder sb = new StringBuilder();
+    sb.append(N).append(',').append(run).append(',').append(mode.getName())
+      .append(',').append(stat.getIsSuccess())
+      .append(",\"").append(stat.getResult()).append('"')
+      .append(',').append(stat.getNumberOfStates())
+      .append(',').append(stat.getNumberOfExpansions())
+      .append(',').append(stat.getNumberOfFrontierStates())
+      .append(',').append(stat.getPeakFrontierSize())
+      .append(',').append(stat.getNumberOfPrunedStates())
+      .append(',').append(stat.getVisitedSetBytes())
+      .append(',').append(stat.getNumberOfEvictedStates())
+      .append(',').append(stat.getAllocatedBytes())
+      .append(',').append(stat.getElapsedNanos())
+      .append(',').append((long) stat.getExpansionsPerSecond());
+    for (SearchPhase phase : SearchPhase.values()) {
+      sb.append(',').append(stat.getPhaseNanos(phase));
+    }
+    // one column for all the depths, separated by semicolons
+    sb.append(',');
+    double[] factors = stat.getBranchingFactors();
+    for (int i = 0; i < factors.length; i++) {
+      if (i > 0) {
+        sb.append(';');
+      }
+      sb.append(format(factors[i]));
+    }
+    return sb.toString();
+  }
+
+  private String toJson(int N, int run, SearchMode mode, Statistics stat) {
+    StringBuilder sb = new StringBuilder("{");
+    sb.append("\"n\":").append(N)
+      .append(",\"run\":").append(run)
+      .append(",\"mode\":\"").append(mode.getName()).append('"')
+      .append(",\"success\":").append(stat.getIsSuccess())
+      .append(",\"result\":\"").append(stat.getResult()).append('"')
+      .append(",\"states\":").append(stat.getNumberOfStates())
+      .append(",\"expansions\":").append(stat.getNumberOfExpansions())
+      .append(",\"frontierStates\":").append(stat.getNumberOfFrontierStates())
+      .append(",\"peakFrontier\":").append(stat.getPeakFrontierSize())
+      .append(",\"prunedStates\":").append(stat.getNumberOfPrunedStates())
+      .append(",\"visitedSetBytes\":").append(stat.getVisitedSetBytes())
+      .append(",\"evictedStates\":").append(stat.getNumberOfEvictedStates())
+      .append(",\"allocatedBytes\":").append(stat.getAllocatedBytes())
+      .append(",\"elapsedNanos\":").append(stat.getElapsedNanos())
+      .append(",\"expansionsPerSecond\":").append((long) stat.getExpansionsPerSecond())
+      .append(",\"phaseNanos\":{");
+    SearchPhase[] phases = SearchPhase.values();
+    for (int i = 0; i < phases.length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append('"').append(phases[i].getName()).append("\":").append(stat.getPhaseNanos(phases[i]));
+    }
+    sb.append("},\"branchingByDepth\":[");
+    double[] factors = stat.getBranchingFactors();
+    for (int i = 0; i < factors.length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(format(factors[i]));
+    }
+    return sb.append("]}").toString();
+  }
+
+  private static String format(double d) {
+    return String.valueOf(Math.round(d * 1000) / 1000.0);
+  }
+}
@@ -0,0 +1,126 @@
+package ps1;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+/**
+ * An instance of the scheduling problem held in memory: the tasks,
+ * the dependency edges, the target value and deadline and the maximum
+ * frontier size. Random instances are built directly as objects;
+ * reading and writing the input file format is optional.
+ * @author Narasimman
+ *
+ */
+public class ProblemInstance {
+  private final List<Task> tasks;
+  private final List<Integer> dependencies;
+  private final int targetValue;
+  private final int targetDeadline;
+  private final int maxFrontierSize;
+
+  /**
+   * Constructor
+   * @param tasks tasks with ids 0..n-1 in order
+   * @param dependencies pairs X Y where X is a pre req for Y
+   * @param targetValue
+   * @param targetDeadline
+   * @param maxFrontierSize
+   */
+  public ProblemInstance(List<Task> tasks, List<Integer> dependencies,
+      int targetValue, int targetDeadline, int maxFrontierSize) {
+    this.tasks = tasks;
+    this.dependencies = dependencies;
+    this.targetValue = targetValue;
+    this.targetDeadline = targetDeadline;
+    this.maxFrontierSize = maxFrontierSize;
+  }
+
+  /**
+   * Parse an instance from the input file format
+   * @param inputFile
+   * @return
+   * @throws FileNotFoundException
+   */
+  public static ProblemInstance read(String inputFile) throws FileNotFoundException {
+    try(Scanner scanner = new Scanner(new File(inputFile));) {
+      int numberOfTasks = scanner.nextInt();
+      int targetValue = scanner.nextInt();
+      int targetDeadline = scanner.nextInt();
+      int maxFrontierSize = scanner.nextInt();
+
+      List<Task> tasks = new ArrayList<Task>();
+      for (int i = 0; i < numberOfTasks; i ++) {
+        int id = scanner.nextInt();
+        int value = scanner.nextInt();
+        int time = scanner.nextInt();
+        tasks.add(new Task(id, value, time));
+      }
+
+      List<Integer> dep = new ArrayList<Integer>();
+
+      // X is a pre req for Y
+      while(scanner.hasNextInt()) {
+        dep.add(scanner.nextInt());
+      }
+      return new ProblemInstance(tasks, dep, targetValue, targetDeadline, maxFrontierSize);
+    }
+  }
+
+  /**
+   * Export the instance in the input file format
+   * @param outputFile
+   * @throws FileNotFoundException
+   */
+  public void write(String outputFile) throws FileNotFoundException {
+    try(PrintWriter out = new PrintWriter(outputFile)) {
+      out.write(this.toString());
+    }
+  }
+
+  public List<Task> getTasks() {
+    return tasks;
+  }
+
+  public List<Integer> getDependencies() {
+    return dependencies;
+  }
+
+  public int getTargetValue() {
+    return targetValue;
+  }
+
+  public int getTargetDeadline() {
+    return targetDeadline;
+  }
+
+  public int getMaxFrontierSize() {
+    return maxFrontierSize;
+  }
+
+  /**
+   * The goal of the search as a task holding the target value and deadline
+   * @return
+   */
+  public Task getGoal() {
+    return new Task(-2, targetValue, targetDeadline);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    //N targetValue targetDeadline max
+    sb.append(tasks.size() + " " + targetValue + " " +
+        targetDeadline + " " + maxFrontierSize + "\n");
+    for (Task task : tasks) {
+      sb.append(task.getId() + " " + task.getValue() + " " + task.getTime() + "\n");
+    }
+    for (int i = 0; i < dependencies.size(); i += 2) {
+      sb.append(dependencies.get(i) + " " + dependencies.get(i + 1) + "\n");
+    }
+    return sb.toString();
+  }
+}
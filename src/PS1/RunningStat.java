@@ -0,0 +1,146 @@
+package ps1;
+
+/**
+ * Streaming summary of one metric over many runs: count, min, max, mean
+ * and variance (Welford's method), plus a histogram with logarithmic
+ * buckets for percentiles. Memory does not depend on the number of values
+ * and two summaries can be merged, so each thread can keep its own and
+ * combine them at the end.
+ * Percentiles are exact below 16 and within about 6% above.
+ * @author Narasimman
+ *
+ */
+public class RunningStat {
+  // 16 buckets for each power of two of a non negative long
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private long count;
+  private long min = Long.MAX_VALUE;
+  private long max = Long.MIN_VALUE;
+  private double mean;
+  private double m2;
+  private final long[] buckets = new long[(64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS];
+
+  /**
+   * Adds one value, negative values count as 0 in the histogram
+   * @param value
+   */
+  public synchronized void add(long value) {
+    count++;
+    min = Math.min(min, value);
+    max = Math.max(max, value);
+    double delta = value - mean;
+    mean += delta / count;
+    m2 += delta * (value - mean);
+    buckets[bucketOf(Math.max(0, value))]++;
+  }
+
+  /**
+   * Adds all the values summarized by another instance
+   * (Chan et al. parallel variance). The other instance is copied under
+   * its own lock first, so no thread ever holds both locks and two
+   * instances can be merged into each other concurrently.
+   * @param other
+   */
+  public void merge(RunningStat other) {
+    RunningStat copy = other.snapshot();
+    if (copy.count == 0) {
+      return;
+    }
+    synchronized (this) {
+      long total = count + copy.count;
+      double delta = copy.mean - mean;
+      m2 += copy.m2 + delta * delta * count * copy.count / total;
+      mean += delta * copy.count / total;
+      count = total;
+      min = Math.min(min, copy.min);
+      max = Math.max(max, copy.max);
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] += copy.buckets[i];
+      }
+    }
+  }
+
+  private synchronized RunningStat snapshot() {
+    RunningStat copy = new RunningStat();
+    copy.count = count;
+    copy.min = min;
+    copy.max = max;
+    copy.mean = mean;
+    copy.m2 = m2;
+    System.arraycopy(buckets, 0, copy.buckets, 0, buckets.length);
+    return copy;
+  }
+
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public synchronized long getMin() {
+    return count == 0 ? 0 : min;
+  }
+
+  public synchronized long getMax() {
+    return count == 0 ? 0 : max;
+  }
+
+  public synchronized double getMean() {
+    return mean;
+  }
+
+  public synchronized double getVariance() {
+    return count < 2 ? 0 : m2 / (count - 1);
+  }
+
+  public double getStdDev() {
+    return Math.sqrt(getVariance());
+  }
+
+  /**
+   * Approximate value below which the given fraction of values fall
+   * @param q between 0 and 1
+   * @return
+   */
+  public synchronized long getPercentile(double q) {
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(q * count));
+    if (rank >= count) {
+      return max;
+    }
+    long seen = 0;
+    for (int i = 0; i < buckets.length; i++) {
+      seen += buckets[i];
+      if (seen >= rank) {
+        return Math.min(max, Math.max(min, lowestValueOf(i)));
+      }
+    }
+    return max;
+  }
+
+  private static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + sub;
+  }
+
+  private static long lowestValueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    return (SUB_BUCKETS + sub) << shift;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return getMin() + " | " + getMax() + " | " + mean + " | " + getStdDev();
+  }
+}
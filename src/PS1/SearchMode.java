@@ -0,0 +1,39 @@
+package ps1;
+
+/**
+ * Search strategies that can be selected from the command line of the driver
+ * @author Narasimman
+ *
+ */
+public enum SearchMode {
+  BFS_ID("bfs"),
+  BEST_FIRST("best"),
+  BRANCH_AND_BOUND("bnb"),
+  PARALLEL_BFS("parallel"),
+  IDEALS("dp"),
+  MEMORY_BOUNDED("bounded");
+
+  private final String name;
+
+  private SearchMode(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the mode with the given command line name or null if none matches
+   * @param name
+   * @return
+   */
+  public static SearchMode fromName(String name) {
+    for (SearchMode mode : values()) {
+      if (mode.name.equalsIgnoreCase(name)) {
+        return mode;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,26 @@
+package ps1;
+
+/**
+ * Phases of a run whose wall time is recorded in the statistics
+ * @author Narasimman
+ *
+ */
+public enum SearchPhase {
+  SETUP("setup"),
+  BFS("bfs"),
+  DEEPENING("deepening"),
+  PARALLEL("parallel"),
+  BEST_FIRST("best"),
+  BRANCH_AND_BOUND("bnb"),
+  IDEALS("dp");
+
+  private final String name;
+
+  private SearchPhase(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+}
@@ -1,11 +1,10 @@
 package ps1;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 /**
  * Represents the state of the problem. Every state is unique in a state space tree.
- * The property sequence is unique and represents the sequence of tasks added.
+ * The path is unique and represents the sequence of tasks added, while the
+ * scheduled set records the same tasks as a bit vector for O(1) lookups.
  * @author Narasimman
  *
  */
@@ -14,13 +13,47 @@ public class State {
   private int taskId;
   private int depth;
   private boolean visited;
-  private String sequence;
+  private final TaskSet scheduled;
+  private final int[] path;
+  private final int value;
+  private final int time;
+  private int bound;
   
-  public State(int id, int taskId, int depth) {
+  /**
+   * Creates the root state with no tasks scheduled
+   * @param id
+   * @param taskId
+   * @param numberOfTasks
+   */
+  public State(int id, int taskId, int numberOfTasks) {
+    this.id = id;
+    this.taskId = taskId;
+    this.visited = false;
+    this.depth = 0;
+    this.scheduled = new TaskSet(numberOfTasks);
+    this.path = new int[0];
+    this.value = 0;
+    this.time = 0;
+  }
+
+  /**
+   * Creates the child of a state by scheduling one more task.
+   * The cumulative value and time are carried over from the parent.
+   * @param id
+   * @param parent
+   * @param task
+   */
+  public State(int id, State parent, Task task) {
+    int taskId = task.getId();
     this.id = id;
     this.taskId = taskId;
     this.visited = false;
-    this.depth = depth;
+    this.depth = parent.depth + 1;
+    this.scheduled = parent.scheduled.with(taskId);
+    this.path = Arrays.copyOf(parent.path, parent.path.length + 1);
+    this.path[parent.path.length] = taskId;
+    this.value = parent.value + task.getValue();
+    this.time = parent.time + task.getTime();
   }
   
   public boolean isVisited() {
@@ -31,12 +64,31 @@ public class State {
     return taskId;
   }
   
-  public void setSequence(String s) {
-    this.sequence = s;
+  public TaskSet getScheduled() {
+    return scheduled;
   }
-  
+
+  public boolean isScheduled(int taskId) {
+    return scheduled.contains(taskId);
+  }
+
+  public int[] getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the task ids in the order they were added, separated by spaces
+   * @return
+   */
   public String getSequence() {
-    return this.sequence;
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < path.length; i++) {
+      if (i > 0) {
+        sb.append(" ");
+      }
+      sb.append(path[i]);
+    }
+    return sb.toString();
   }
   
   public int getDepth() {
@@ -44,50 +96,50 @@ public class State {
   }
   
   /**
-   * Checks whether a state is valid or not by checking
-   * if it has crossed the deadline
-   * @param state
+   * Cumulative value of the tasks scheduled so far
    * @return
    */
-  boolean isValidState(List<Task> list, Task goalTask) {    
-    Map<String, Integer> map = this.computeCumulateValues(list);  
+  public int getValue() {
+    return value;
+  }
 
-    if(map.get("time") <= goalTask.getTime()) { 
-      return true;
-    }
-    return false;
+  /**
+   * Cumulative time of the tasks scheduled so far
+   * @return
+   */
+  public int getTime() {
+    return time;
   }
 
   /**
-   * Compute the cumulative value and time of the current state 
-   * from its sequence
-   * @param taskList
+   * Optimistic bound on the value reachable from this state,
+   * set by the best first search
    * @return
    */
-  Map<String, Integer> computeCumulateValues(List<Task> taskList) {
-    Map<String, Integer> map = new HashMap<String, Integer>();
-    int currentValue = 0;
-    int currentDeadline = 0;
+  public int getBound() {
+    return bound;
+  }
 
-    if(this.getTaskId() > -1) {      
-      String[] s = this.getSequence().split("");      
-      for(int i = 1; i < s.length; i++) {
-        Task t = taskList.get(Integer.parseInt(s[i]));
-        currentValue += t.getValue();
-        currentDeadline += t.getTime();
-      }
-    }
-    map.put("value", currentValue);
-    map.put("time", currentDeadline);
-    return map;    
+  public void setBound(int bound) {
+    this.bound = bound;
   }
-  
+
+  /**
+   * Checks whether a state is valid or not by checking
+   * if it has crossed the deadline
+   * @param goalTask
+   * @return
+   */
+  boolean isValidState(Task goalTask) {
+    return time <= goalTask.getTime();
+  }
+
   public int getId() {
     return id;
   }
 
   @Override
   public String toString() {
-    return " " + this.sequence;
+    return " " + this.getSequence();
   }
 }
@@ -2,27 +2,34 @@ package ps1;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Stack;
-
-import org.jgraph.graph.DefaultEdge;
-import org.jgrapht.DirectedGraph;
-import org.jgrapht.Graphs;
-import org.jgrapht.graph.DefaultDirectedGraph;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents the state space search class that is responsible for
  * maintaining different states in a space tree
- * Perform BFS/ID on the space tree created.
+ * Perform BFS/ID, best first or branch and bound search on the space tree,
+ * generating the children of a state only when it is expanded.
  * @author Narasimman
  *
  */
 public class StateSpaceSearch {  
+  // levels below a frontier state that are still split into separate tasks
+  private static final int SPLIT_LEVELS = 3;
+  private static ForkJoinPool pool;
+
   private Task start;
   private Task goal;
 
@@ -31,15 +38,19 @@ public class StateSpaceSearch {
   private State goalState;
   private Task resultTask;
   private int maxFrontierSize;
-  private int stateCounter;
+  private AtomicInteger stateCounter = new AtomicInteger();
+  private AtomicInteger peakFrontier = new AtomicInteger();
+  // states expanded and children generated at every depth of the tree
+  private AtomicLongArray expansionsByDepth;
+  private AtomicLongArray childrenByDepth;
 
   private List<Task> taskList;
-  private DirectedGraph<Task, DefaultEdge> g;
+  private DependencyGraph g;
 
-  private Map<String, Boolean> searchMap = new HashMap<String, Boolean>();
+  private Task[] tasksByRatio;
+  private int numberOfPrunedStates;
 
-  private DirectedGraph<State, DefaultEdge> stateSpaceTree = 
-      new DefaultDirectedGraph<State, DefaultEdge>(DefaultEdge.class);
+  private IVisitedSet searchMap;
   private Statistics stat;
 
   /**
@@ -47,14 +58,37 @@ public class StateSpaceSearch {
    * @param list
    * @param g
    */
-  public StateSpaceSearch(List<Task> list, DirectedGraph<Task, DefaultEdge> g) {
+  public StateSpaceSearch(List<Task> list, DependencyGraph g) {
     this.taskList = list;
     this.g = g;
-    this.goalFound = false;    
+    this.goalFound = false;
+    this.searchMap = new VisitedSet(list.size());
+
+    // Tasks with the best value per unit of time first, for the fractional bound
+    this.tasksByRatio = list.toArray(new Task[list.size()]);
+    Arrays.sort(this.tasksByRatio, new Comparator<Task>() {
+      @Override
+      public int compare(Task t1, Task t2) {
+        return Long.compare((long) t2.getValue() * t1.getTime(),
+            (long) t1.getValue() * t2.getTime());
+      }
+    });
+  }
+
+  /**
+   * Constructor that builds the DAG of an in-memory instance
+   * and initializes the search for its target
+   * @param instance
+   */
+  public StateSpaceSearch(ProblemInstance instance) {
+    this(instance.getTasks(), new DependencyGraph(
+        instance.getTasks(), instance.getDependencies()));
+    initialize(new Task(-1, 0, 0), instance.getGoal(), instance.getMaxFrontierSize());
   }
 
   /**
-   * Initialize and construct the state space tree with duplicates.
+   * Initialize the search with the root state. The state space tree is
+   * not built up front; successors are generated as states are expanded.
    * @param s
    * @param g
    * @param maxFrontierSize
@@ -62,11 +96,13 @@ public class StateSpaceSearch {
   public void initialize(Task s, Task g, int maxFrontierSize) {
     this.start = s;
     this.goal = g;
-    this.stateCounter = 0;
-    this.root = new State(stateCounter, start.getId(), 0);
+    this.stateCounter.set(0);
+    this.peakFrontier.set(0);
+    this.expansionsByDepth = new AtomicLongArray(taskList.size() + 1);
+    this.childrenByDepth = new AtomicLongArray(taskList.size() + 1);
+    this.root = new State(0, start.getId(), taskList.size());
     this.maxFrontierSize = maxFrontierSize;
     this.stat = new Statistics();
-    constructSpaceSearchTree();
   }
 
   /**
@@ -74,6 +110,73 @@ public class StateSpaceSearch {
    * Continue until the size of the frontier queue reaches the maximum
    */
   void doBFS() {
+    long startTime = System.nanoTime();
+    Queue<State> frontier = fillFrontier();
+    this.stat.addPhaseNanos(SearchPhase.BFS, System.nanoTime() - startTime);
+
+    if(!this.goalFound && !frontier.isEmpty()) {
+      startTime = System.nanoTime();
+      doIterativeDeepening(frontier);
+      this.stat.addPhaseNanos(SearchPhase.DEEPENING, System.nanoTime() - startTime);
+    }
+    recordSearchStats();
+  }
+
+  /**
+   * Perform the breadth first traversal and then search the subtrees of the
+   * frontier states in parallel on a fork join pool. The workers share a
+   * visited set and all of them stop once any one finds the goal.
+   * Unlike doBFS this deliberately drops iterative deepening: each subtree
+   * is searched depth first without a limit. A goal only needs enough
+   * value, so it is usually deep, and deepening one level at a time with a
+   * visited set cleared at every iteration expands every shallower subset
+   * first, which took tens of millions of states on 30 tasks where the
+   * plain depth first search takes a few hundred. A state has as many
+   * tasks as its depth, so the visited set already bounds the work to the
+   * subsets of tasks, whatever order the search reaches them in.
+   */
+  void doParallelBFS() {
+    this.searchMap = new ConcurrentVisitedSet(taskList.size());
+    long startTime = System.nanoTime();
+    Queue<State> frontier = fillFrontier();
+    this.stat.addPhaseNanos(SearchPhase.BFS, System.nanoTime() - startTime);
+
+    if(!this.goalFound && !frontier.isEmpty()) {
+      startTime = System.nanoTime();
+      AtomicReference<State> found = new AtomicReference<State>();
+      List<SubtreeSearch> tasks = new ArrayList<SubtreeSearch>();
+      for (State state : frontier) {
+        tasks.add(new SubtreeSearch(state, state.getDepth() + SPLIT_LEVELS, found));
+      }
+      FrontierSearch search = new FrontierSearch(tasks);
+      if (ForkJoinTask.inForkJoinPool()) {
+        // already on a worker, e.g. of the parallel experiments
+        search.invoke();
+      } else {
+        getPool().invoke(search);
+      }
+      if (found.get() != null) {
+        this.isGoalReached(found.get());
+      }
+      this.stat.addPhaseNanos(SearchPhase.PARALLEL, System.nanoTime() - startTime);
+      this.stat.setNumberOfFrontierStates(searchMap.size());
+    }
+    recordSearchStats();
+  }
+
+  private static synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool();
+    }
+    return pool;
+  }
+
+  /**
+   * Breadth first traversal from the root until the frontier is full
+   * or the goal is reached.
+   * @return the frontier left by the traversal
+   */
+  private Queue<State> fillFrontier() {
     List<State> children = new ArrayList<State>();
     Queue<State> frontier = new LinkedList<State>();
     boolean isFrontierFull = false;
@@ -85,7 +188,7 @@ public class StateSpaceSearch {
         this.goalState = parent;
         break;
       }
-      children = Graphs.successorListOf(stateSpaceTree, parent);        
+      children = successorsOf(parent);
       for (int i = 0; i < children.size(); i++) {
         State child = children.get(i);
         if(frontier.size() <= this.maxFrontierSize && !isVisited(child)) {
@@ -95,11 +198,165 @@ public class StateSpaceSearch {
           break;
         }
       }
+      notePeakFrontier(frontier.size());
     }
+    return frontier;
+  }
 
-    if(!frontier.isEmpty()) {
-      doIterativeDeepening(frontier);
+  /**
+   * Perform best first search with pruning on an optimistic bound.
+   * States whose bound cannot reach the target value are never queued.
+   * The queued state with the highest value is expanded next and ties go
+   * to the higher bound, which dives towards the target instead of
+   * widening the search like an ordering on the bound alone would.
+   */
+  void doBestFirst() {
+    PriorityQueue<State> frontier = new PriorityQueue<State>(11, new Comparator<State>() {
+      @Override
+      public int compare(State s1, State s2) {
+        if (s1.getValue() != s2.getValue()) {
+          return s2.getValue() - s1.getValue();
+        }
+        return s2.getBound() - s1.getBound();
+      }
+    });
+    long startTime = System.nanoTime();
+    root.setBound(optimisticValue(root));
+    frontier.add(root);
+
+    while (!frontier.isEmpty()) {
+      State parent = frontier.poll();
+      if (this.isGoalReached(parent)) {
+        break;
+      }
+      for (State child : successorsOf(parent)) {
+        if (!child.isValidState(this.goal) || isVisited(child)) {
+          continue;
+        }
+        child.setBound(optimisticValue(child));
+        if (child.getBound() >= this.goal.getValue()) {
+          frontier.add(child);
+        } else {
+          numberOfPrunedStates++;
+        }
+      }
+      notePeakFrontier(frontier.size());
+    }
+    this.stat.addPhaseNanos(SearchPhase.BEST_FIRST, System.nanoTime() - startTime);
+    this.stat.setNumberOfFrontierStates(searchMap.size());
+    this.stat.setNumberOfPrunedStates(numberOfPrunedStates);
+    recordSearchStats();
+  }
+
+  /**
+   * Perform depth first branch and bound. Every generated state gets the
+   * fractional knapsack bound of the unscheduled tasks and the subtree is
+   * cut when even that bound cannot reach the target value. Children with
+   * the highest bound are explored first.
+   */
+  void doBranchAndBound() {
+    Comparator<State> byBound = new Comparator<State>() {
+      @Override
+      public int compare(State s1, State s2) {
+        return s1.getBound() - s2.getBound();
+      }
+    };
+    long startTime = System.nanoTime();
+    Stack<State> fringe = new Stack<State>();
+    fringe.push(root);
+
+    while (!fringe.isEmpty()) {
+      State parent = fringe.pop();
+      if (this.isGoalReached(parent)) {
+        break;
+      }
+
+      List<State> children = new ArrayList<State>();
+      for (State child : successorsOf(parent)) {
+        if (!child.isValidState(this.goal) || isVisited(child)) {
+          continue;
+        }
+        child.setBound(fractionalBound(child));
+        if (child.getBound() >= this.goal.getValue()) {
+          children.add(child);
+        } else {
+          numberOfPrunedStates++;
+        }
+      }
+      // lowest bound pushed first so the most promising child is popped next
+      Collections.sort(children, byBound);
+      for (State child : children) {
+        fringe.push(child);
+      }
+      notePeakFrontier(fringe.size());
+    }
+    this.stat.addPhaseNanos(SearchPhase.BRANCH_AND_BOUND, System.nanoTime() - startTime);
+    this.stat.setNumberOfFrontierStates(searchMap.size());
+    this.stat.setNumberOfPrunedStates(numberOfPrunedStates);
+    recordSearchStats();
+  }
+
+  /**
+   * Branch and bound whose visited set holds at most the given number of
+   * bytes, dropping the least recently used states beyond it. The depth
+   * first fringe only holds the children along the current path, so the
+   * search stays within the budget and re-expands forgotten states instead
+   * of running out of heap.
+   * @param budget bytes allowed for the visited set
+   */
+  void doMemoryBounded(long budget) {
+    BoundedVisitedSet visited = new BoundedVisitedSet(taskList.size(), budget);
+    this.searchMap = visited;
+    doBranchAndBound();
+    this.stat.setNumberOfEvictedStates(visited.getEvictions());
+  }
+
+  /**
+   * Upper bound on the value reachable from a state from the fractional
+   * relaxation of the knapsack over the unscheduled tasks: take tasks in
+   * order of value per unit of time and a fraction of the first one that
+   * does not fit. The pre-reqs are ignored, which only loosens the bound.
+   * @param state
+   * @return
+   */
+  int fractionalBound(State state) {
+    int remaining = this.goal.getTime() - state.getTime();
+    int bound = state.getValue();
+    for (Task task : tasksByRatio) {
+      if (remaining <= 0) {
+        break;
+      }
+      if (state.isScheduled(task.getId())) {
+        continue;
+      }
+      if (task.getTime() <= remaining) {
+        bound += task.getValue();
+        remaining -= task.getTime();
+      } else {
+        // the optimum is an integer, so the fraction can be rounded down
+        bound += (int) ((long) task.getValue() * remaining / task.getTime());
+        remaining = 0;
+      }
+    }
+    return bound;
+  }
+
+  /**
+   * Optimistic bound on the value reachable from a state: its own value plus
+   * every unscheduled task that still fits in the remaining time on its own.
+   * It never underestimates, so pruning on it never loses a goal.
+   * @param state
+   * @return
+   */
+  private int optimisticValue(State state) {
+    int remaining = this.goal.getTime() - state.getTime();
+    int bound = state.getValue();
+    for (Task task : taskList) {
+      if (!state.isScheduled(task.getId()) && task.getTime() <= remaining) {
+        bound += task.getValue();
+      }
     }
+    return bound;
   }
 
   /**
@@ -139,12 +396,13 @@ public class StateSpaceSearch {
       if (parent.getDepth() == depthLimit) { 
         continue;
       } else {
-        children = Graphs.successorListOf(stateSpaceTree, parent);
+        children = successorsOf(parent);
         for (int i = 0; i < children.size(); i++) {
           State child = children.get(i);
           if(!isVisited(child))
             fringe.push(child);
         }
+        notePeakFrontier(fringe.size());
       }         
     }
     return proceed;
@@ -152,29 +410,18 @@ public class StateSpaceSearch {
 
   /**
    * Check if this state is already processed. 
-   * The sorted sequence is put in a hash map and thus avoiding
+   * The set of scheduled tasks is put in the visited set and thus avoiding
    * processing of duplicate states.
    * @param state
    * @return
    */
   private boolean isVisited(State state) {
-    String sequence = state.getSequence();
-    char[] c = sequence.toCharArray(); 
-    Arrays.sort(c);
-    String sortedSequence = new String(c);
-    if(!searchMap.containsKey(sortedSequence)) {
-      searchMap.put(sortedSequence, true);
-    } else {
-      return true;
-    }
-    return false;
+    return !searchMap.add(state.getScheduled());
   }
 
   private boolean isGoalReached(State goal) {
-    Map<String, Integer> map = goal.computeCumulateValues(this.taskList);  
-
-    if(map.get("value") >= this.goal.getValue() && map.get("time") <= this.goal.getTime()) {
-      this.resultTask = new Task(-1, map.get("value"), map.get("time"));      
+    if(isGoal(goal)) {
+      this.resultTask = new Task(-1, goal.getValue(), goal.getTime());
       this.goalFound = true;
       this.goalState = goal;
       this.stat.setIsSuccess(true);
@@ -186,82 +433,99 @@ public class StateSpaceSearch {
   }
 
   /**
-   * Construct the state space tree from the given DAG
+   * Checks the target without recording anything, safe for parallel workers
+   * @param state
+   * @return
    */
-  private void constructSpaceSearchTree() {
-    Queue<State> stateQueue = new LinkedList<State>();
-    stateSpaceTree.addVertex(root);
+  private boolean isGoal(State state) {
+    return state.getValue() >= this.goal.getValue() && state.getTime() <= this.goal.getTime();
+  }
 
-    Iterator<Task> iterator = taskList.iterator();
-    //Adding initial tasks that are with no pre-req
-    while(iterator.hasNext()) {
-      Task task = iterator.next();
-      if(g.inDegreeOf(task) < 1) {
-        State s = new State(this.stateCounter + 1, task.getId(), root.getDepth() + 1);
-        s.setSequence(Integer.toString(task.getId()));
-        stateSpaceTree.addVertex(s);
-        stateSpaceTree.addEdge(root, s);
-        stateQueue.add(s);
-      }
-    }
+  /**
+   * Generate the children of a state from the DAG on demand.
+   * Only the states that are actually expanded are ever created, so memory
+   * grows with the frontier rather than with the whole state space tree.
+   * @param currentState
+   * @return children of the state, empty if it has crossed the deadline
+   */
+  private List<State> successorsOf(State currentState) {
+    List<State> children = generateSuccessors(currentState);
+    int depth = currentState.getDepth();
+    expansionsByDepth.incrementAndGet(depth);
+    childrenByDepth.addAndGet(depth, children.size());
+    return children;
+  }
 
-    while(!stateQueue.isEmpty()) {
-      State currentState = stateQueue.poll();
-      iterator = taskList.iterator();
+  private List<State> generateSuccessors(State currentState) {
+    List<State> children = new ArrayList<State>();
+    Iterator<Task> iterator = taskList.iterator();
 
+    //Adding initial tasks that are with no pre-req
+    if(currentState == root) {
       while(iterator.hasNext()) {
-        String currentSequence = currentState.getSequence();
         Task task = iterator.next();
-        int taskId = task.getId();
-        String sTaskId = Integer.toString(taskId);
-        //Skip the current task in process.
-        if(currentSequence.contains(sTaskId)) {
-          continue;
+        if(g.inDegreeOf(task.getId()) < 1) {
+          children.add(new State(this.stateCounter.incrementAndGet(), root, task));
         }
+      }
+      return children;
+    }
 
-        int indegree = g.inDegreeOf(task);        
-        int sequenceLength = currentSequence.length();
-        boolean valid = true;
+    if(!currentState.isValidState(this.goal)) {
+      return children;
+    }
 
-        if(indegree < 1 && g.inDegreeOf(taskList.get(Integer.parseInt(currentSequence.substring(sequenceLength - 1)))) < 1){
-          if(currentState.isValidState(taskList, this.goal)) {
-            stateQueue.add(addNewStateToTree(taskId, currentState, currentSequence));
-          }
-        } else if(indegree > 0) {
-          for(Task t : Graphs.predecessorListOf(g, task)) {
-            if(indegree > sequenceLength ||               
-                !currentSequence.contains(Integer.toString(t.getId()))) {              
-              valid = false;
-              break;
-            }
-          }
+    boolean lastIsIndependent = g.inDegreeOf(currentState.getTaskId()) < 1;
+    TaskSet scheduled = currentState.getScheduled();
 
-          if(valid && !currentSequence.contains(sTaskId)) {
-            if(currentState.isValidState(taskList, this.goal)) {
-              stateQueue.add(addNewStateToTree(taskId, currentState, currentSequence));
-            }
-          }
+    while(iterator.hasNext()) {
+      Task task = iterator.next();
+      int taskId = task.getId();
+      //Skip the tasks already in process.
+      if(scheduled.contains(taskId)) {
+        continue;
+      }
+
+      TaskSet pre = g.predecessorMask(taskId);
+      if(pre.isEmpty()) {
+        if(lastIsIndependent) {
+          children.add(new State(this.stateCounter.incrementAndGet(), currentState, task));
         }
+      } else if(scheduled.containsAll(pre)) {
+        children.add(new State(this.stateCounter.incrementAndGet(), currentState, task));
       }
     }
+    return children;
+  }
 
-    //System.out.println(stateSpaceTree);
-    this.stat.setNumberOfStates(stateSpaceTree.vertexSet().size());
+  /**
+   * Keeps the largest frontier seen, which parallel workers report concurrently
+   * @param size
+   */
+  private void notePeakFrontier(int size) {
+    int peak = peakFrontier.get();
+    while (size > peak && !peakFrontier.compareAndSet(peak, size)) {
+      peak = peakFrontier.get();
+    }
   }
 
   /**
-   * Create new vertex and add it to the state space tree.
-   * @param taskId
-   * @param currentState
-   * @param currentSequence
-   * @return new state created
+   * Copies the counters shared by every search into the statistics
    */
-  private State addNewStateToTree(int taskId, State currentState, String currentSequence) {
-    State newState = new State(this.stateCounter + 1, taskId, currentState.getDepth() + 1);
-    newState.setSequence(currentSequence + Integer.toString(taskId));
-    stateSpaceTree.addVertex(newState);
-    stateSpaceTree.addEdge(currentState, newState);   
-    return newState;
+  private void recordSearchStats() {
+    long[] expansions = new long[expansionsByDepth.length()];
+    long[] children = new long[expansions.length];
+    long numberOfExpansions = 0;
+    for (int i = 0; i < expansions.length; i++) {
+      expansions[i] = expansionsByDepth.get(i);
+      children[i] = childrenByDepth.get(i);
+      numberOfExpansions += expansions[i];
+    }
+    this.stat.setNumberOfStates(this.stateCounter.get());
+    this.stat.setNumberOfExpansions(numberOfExpansions);
+    this.stat.setDepthCounts(expansions, children);
+    this.stat.setPeakFrontierSize(peakFrontier.get());
+    this.stat.setVisitedSetBytes(searchMap.memoryUsage());
   }
 
   /**
@@ -287,4 +551,77 @@ public class StateSpaceSearch {
     return this.stat;
   }
 
+  /**
+   * Root task of the parallel search, runs one subtree task per frontier state
+   */
+  private static class FrontierSearch extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final List<SubtreeSearch> tasks;
+
+    FrontierSearch(List<SubtreeSearch> tasks) {
+      this.tasks = tasks;
+    }
+
+    @Override
+    protected void compute() {
+      invokeAll(tasks);
+    }
+  }
+
+  /**
+   * Depth first search of the subtree below one state. Near the frontier
+   * every child is forked as its own task so that idle workers can steal
+   * them; below the split depth the subtree is searched with a local stack.
+   * Every worker polls the shared result and stops once a goal is found.
+   */
+  private class SubtreeSearch extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final State state;
+    private final int splitDepth;
+    private final AtomicReference<State> found;
+
+    SubtreeSearch(State state, int splitDepth, AtomicReference<State> found) {
+      this.state = state;
+      this.splitDepth = splitDepth;
+      this.found = found;
+    }
+
+    @Override
+    protected void compute() {
+      if (found.get() != null) {
+        return;
+      }
+      if (isGoal(state)) {
+        found.compareAndSet(null, state);
+        return;
+      }
+
+      if (state.getDepth() < splitDepth) {
+        List<SubtreeSearch> tasks = new ArrayList<SubtreeSearch>();
+        for (State child : successorsOf(state)) {
+          if (!isVisited(child)) {
+            tasks.add(new SubtreeSearch(child, splitDepth, found));
+          }
+        }
+        invokeAll(tasks);
+        return;
+      }
+
+      Stack<State> fringe = new Stack<State>();
+      fringe.push(state);
+      while (!fringe.isEmpty() && found.get() == null) {
+        State parent = fringe.pop();
+        if (isGoal(parent)) {
+          found.compareAndSet(null, parent);
+          return;
+        }
+        for (State child : successorsOf(parent)) {
+          if (!isVisited(child)) {
+            fringe.push(child);
+          }
+        }
+        notePeakFrontier(fringe.size());
+      }
+    }
+  }
 }
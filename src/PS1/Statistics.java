@@ -1,10 +1,10 @@
 package ps1;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
- * Records all the statistics related to state space search
+ * Records all the statistics related to one state space search.
+ * Runs are aggregated by StatisticsSummary.
  * @author Narasimman
  *
  */
@@ -12,11 +12,19 @@ public class Statistics {
   private boolean isSuccess;
   private int numberOfStates;
   private int numberOfFrontierStates;
+  private int numberOfPrunedStates;
+  private long visitedSetBytes;
+  private long numberOfEvictedStates;
+  private long numberOfExpansions;
+  private long elapsedNanos;
+  private int peakFrontierSize;
+  private long allocatedBytes = -1;
+  private final long[] phaseNanos = new long[SearchPhase.values().length];
+  private long[] expansionsByDepth = new long[0];
+  private long[] childrenByDepth = new long[0];
   private String result;
-  private List<Statistics> statList;
   
   Statistics() {
-    statList = new ArrayList<Statistics>();
     isSuccess = false;
     result = "0";
   }
@@ -37,14 +45,6 @@ public class Statistics {
     this.numberOfStates = numberOfStates;
   }
   
-  public void addToList(Statistics stat) {
-    statList.add(stat);
-  }
-  
-  public List<Statistics> getStats() {
-    return statList;
-  }
-
   public int getNumberOfFrontierStates() {
     return numberOfFrontierStates;
   }
@@ -53,6 +53,124 @@ public class Statistics {
     this.numberOfFrontierStates = numberOfFrontierStates;
   }
 
+  public int getNumberOfPrunedStates() {
+    return numberOfPrunedStates;
+  }
+
+  public void setNumberOfPrunedStates(int numberOfPrunedStates) {
+    this.numberOfPrunedStates = numberOfPrunedStates;
+  }
+
+  public long getVisitedSetBytes() {
+    return visitedSetBytes;
+  }
+
+  public void setVisitedSetBytes(long visitedSetBytes) {
+    this.visitedSetBytes = visitedSetBytes;
+  }
+
+  public long getNumberOfEvictedStates() {
+    return numberOfEvictedStates;
+  }
+
+  public void setNumberOfEvictedStates(long numberOfEvictedStates) {
+    this.numberOfEvictedStates = numberOfEvictedStates;
+  }
+
+  public long getNumberOfExpansions() {
+    return numberOfExpansions;
+  }
+
+  public void setNumberOfExpansions(long numberOfExpansions) {
+    this.numberOfExpansions = numberOfExpansions;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * States expanded per second of wall time of the run
+   * @return
+   */
+  public double getExpansionsPerSecond() {
+    if (elapsedNanos == 0) {
+      return 0;
+    }
+    return numberOfExpansions * 1e9 / elapsedNanos;
+  }
+
+  /**
+   * Largest number of states waiting in the frontier at any one time
+   * @return
+   */
+  public int getPeakFrontierSize() {
+    return peakFrontierSize;
+  }
+
+  public void setPeakFrontierSize(int peakFrontierSize) {
+    this.peakFrontierSize = peakFrontierSize;
+  }
+
+  /**
+   * Bytes allocated on the heap by the thread that ran the search,
+   * or -1 if the JVM cannot measure it
+   * @return
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public void setAllocatedBytes(long allocatedBytes) {
+    this.allocatedBytes = allocatedBytes;
+  }
+
+  public long getPhaseNanos(SearchPhase phase) {
+    return phaseNanos[phase.ordinal()];
+  }
+
+  /**
+   * Adds wall time to a phase, which may run more than once
+   * @param phase
+   * @param nanos
+   */
+  public void addPhaseNanos(SearchPhase phase, long nanos) {
+    phaseNanos[phase.ordinal()] += nanos;
+  }
+
+  /**
+   * Records how many states were expanded at every depth of the tree
+   * and how many children they generated, indexed by depth
+   * @param expansions
+   * @param children
+   */
+  public void setDepthCounts(long[] expansions, long[] children) {
+    int depths = expansions.length;
+    while (depths > 0 && expansions[depths - 1] == 0) {
+      depths--;
+    }
+    this.expansionsByDepth = Arrays.copyOf(expansions, depths);
+    this.childrenByDepth = Arrays.copyOf(children, depths);
+  }
+
+  /**
+   * Average number of children of the states expanded at each depth
+   * @return
+   */
+  public double[] getBranchingFactors() {
+    double[] factors = new double[expansionsByDepth.length];
+    for (int i = 0; i < factors.length; i++) {
+      if (expansionsByDepth[i] > 0) {
+        factors[i] = (double) childrenByDepth[i] / expansionsByDepth[i];
+      }
+    }
+    return factors;
+  }
+
   public String getResult() {
     return result;
   }
@@ -0,0 +1,87 @@
+package ps1;
+
+/**
+ * Aggregates the statistics of many search runs without keeping them.
+ * Every metric is a RunningStat, so the memory used is the same for ten
+ * runs or a million. Runs may be added concurrently, and the summaries
+ * built by different threads can be merged.
+ * @author Narasimman
+ *
+ */
+public class StatisticsSummary {
+  private long numberOfRuns;
+  private long numberOfSuccess;
+  private final RunningStat states = new RunningStat();
+  private final RunningStat frontierStates = new RunningStat();
+  private final RunningStat elapsedMicros = new RunningStat();
+  private final RunningStat expansionsPerSecond = new RunningStat();
+
+  /**
+   * Adds the stats of one run. The counters and the metrics are updated
+   * under one lock, so they always agree for a reader holding it.
+   * @param stat
+   */
+  public synchronized void add(Statistics stat) {
+    numberOfRuns++;
+    if (stat.getIsSuccess()) {
+      numberOfSuccess++;
+    }
+    states.add(stat.getNumberOfStates());
+    frontierStates.add(stat.getNumberOfFrontierStates());
+    elapsedMicros.add(stat.getElapsedNanos() / 1000);
+    expansionsPerSecond.add((long) stat.getExpansionsPerSecond());
+  }
+
+  /**
+   * Adds all the runs of another summary. The other summary is copied
+   * under its own lock first, so no thread ever holds the locks of both
+   * summaries and two summaries can be merged into each other concurrently.
+   * @param other
+   */
+  public void merge(StatisticsSummary other) {
+    StatisticsSummary copy = other.snapshot();
+    synchronized (this) {
+      numberOfRuns += copy.numberOfRuns;
+      numberOfSuccess += copy.numberOfSuccess;
+      states.merge(copy.states);
+      frontierStates.merge(copy.frontierStates);
+      elapsedMicros.merge(copy.elapsedMicros);
+      expansionsPerSecond.merge(copy.expansionsPerSecond);
+    }
+  }
+
+  private synchronized StatisticsSummary snapshot() {
+    StatisticsSummary copy = new StatisticsSummary();
+    copy.numberOfRuns = numberOfRuns;
+    copy.numberOfSuccess = numberOfSuccess;
+    copy.states.merge(states);
+    copy.frontierStates.merge(frontierStates);
+    copy.elapsedMicros.merge(elapsedMicros);
+    copy.expansionsPerSecond.merge(expansionsPerSecond);
+    return copy;
+  }
+
+  public synchronized long getNumberOfRuns() {
+    return numberOfRuns;
+  }
+
+  public synchronized long getNumberOfSuccess() {
+    return numberOfSuccess;
+  }
+
+  public RunningStat getStates() {
+    return states;
+  }
+
+  public RunningStat getFrontierStates() {
+    return frontierStates;
+  }
+
+  public RunningStat getElapsedMicros() {
+    return elapsedMicros;
+  }
+
+  public RunningStat getExpansionsPerSecond() {
+    return expansionsPerSecond;
+  }
+}
@@ -0,0 +1,109 @@
+package ps1;
+
+import java.util.Arrays;
+
+/**
+ * A compact set of task ids backed by a bit vector.
+ * Membership and subset checks are a handful of word operations,
+ * so a state can test its scheduled tasks without allocating.
+ * Instances are immutable; adding a task returns a new set.
+ * @author Narasimman
+ *
+ */
+public class TaskSet {
+  private final long[] words;
+
+  /**
+   * Creates an empty set able to hold ids 0..capacity-1
+   * @param capacity
+   */
+  public TaskSet(int capacity) {
+    this.words = new long[Math.max(1, (capacity + 63) >>> 6)];
+  }
+
+  private TaskSet(long[] words) {
+    this.words = words;
+  }
+
+  public boolean contains(int id) {
+    return (words[id >>> 6] & (1L << id)) != 0;
+  }
+
+  /**
+   * Returns a copy of this set with the given task added
+   * @param id
+   * @return
+   */
+  public TaskSet with(int id) {
+    long[] w = words.clone();
+    w[id >>> 6] |= 1L << id;
+    return new TaskSet(w);
+  }
+
+  /**
+   * Checks if every task of the other set is also in this set.
+   * Used to test whether all the pre-reqs of a task are scheduled.
+   * @param other
+   * @return
+   */
+  public boolean containsAll(TaskSet other) {
+    for (int i = 0; i < other.words.length; i++) {
+      if ((other.words[i] & ~words[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  int wordCount() {
+    return words.length;
+  }
+
+  long word(int i) {
+    return words[i];
+  }
+
+  public int size() {
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  public boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof TaskSet)) {
+      return false;
+    }
+    return Arrays.equals(words, ((TaskSet) obj).words);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = 0; i < words.length * 64; i++) {
+      if (contains(i)) {
+        if (sb.length() > 1) {
+          sb.append(" ");
+        }
+        sb.append(i);
+      }
+    }
+    return sb.append("}").toString();
+  }
+}
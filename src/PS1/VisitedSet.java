@@ -0,0 +1,194 @@
+package ps1;
+
+/**
+ * Set of already processed states keyed by the bit vector of scheduled tasks.
+ * The keys are stored flat in a primitive long array with open addressing
+ * (linear probing), so a lookup hashes a few words and allocates nothing.
+ * A state with n tasks uses ceil(n/64) longs per slot.
+ * @author Narasimman
+ *
+ */
+public class VisitedSet implements IVisitedSet {
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final int stride;
+  private long[] keys;
+  private int capacity;
+  private int size;
+  private boolean containsEmpty;
+
+  /**
+   * Constructor
+   * @param numberOfTasks
+   */
+  public VisitedSet(int numberOfTasks) {
+    this.stride = new TaskSet(numberOfTasks).wordCount();
+    this.capacity = INITIAL_CAPACITY;
+    this.keys = new long[capacity * stride];
+  }
+
+  /**
+   * Adds the set of tasks if it is not already present.
+   * An all zero slot marks a free slot, so the empty set is tracked separately.
+   * @param set
+   * @return true if the set was not present before
+   */
+  @Override
+  public boolean add(TaskSet set) {
+    if (set.isEmpty()) {
+      boolean added = !containsEmpty;
+      containsEmpty = true;
+      return added;
+    }
+
+    int slot = find(keys, capacity, set);
+    if (!isFree(keys, slot)) {
+      return false;
+    }
+    store(keys, slot, set);
+    size++;
+    if (size * 2 > capacity) {
+      grow();
+    }
+    return true;
+  }
+
+  /**
+   * Adds a set of at most 64 tasks given directly as its single word,
+   * for callers that keep their states as a long bit mask
+   * @param word
+   * @return true if the set was not present before
+   */
+  public boolean add(long word) {
+    if (stride != 1) {
+      throw new IllegalStateException("Set holds more than 64 tasks");
+    }
+    if (word == 0) {
+      boolean added = !containsEmpty;
+      containsEmpty = true;
+      return added;
+    }
+
+    int mask = capacity - 1;
+    int slot = (int) mix(word) & mask;
+    while (keys[slot] != 0) {
+      if (keys[slot] == word) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = word;
+    size++;
+    if (size * 2 > capacity) {
+      grow();
+    }
+    return true;
+  }
+
+  public boolean contains(TaskSet set) {
+    if (set.isEmpty()) {
+      return containsEmpty;
+    }
+    return !isFree(keys, find(keys, capacity, set));
+  }
+
+  @Override
+  public int size() {
+    return containsEmpty ? size + 1 : size;
+  }
+
+  /**
+   * Approximate number of bytes held by the table
+   * @return
+   */
+  @Override
+  public long memoryUsage() {
+    return (long) keys.length * 8;
+  }
+
+  /**
+   * Returns the slot holding the set or the free slot where it belongs
+   */
+  private int find(long[] table, int tableCapacity, TaskSet set) {
+    int mask = tableCapacity - 1;
+    int slot = hash(set) & mask;
+    while (!isFree(table, slot) && !matches(table, slot, set)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private boolean isFree(long[] table, int slot) {
+    int base = slot * stride;
+    for (int i = 0; i < stride; i++) {
+      if (table[base + i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean matches(long[] table, int slot, TaskSet set) {
+    int base = slot * stride;
+    for (int i = 0; i < stride; i++) {
+      if (table[base + i] != set.word(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void store(long[] table, int slot, TaskSet set) {
+    int base = slot * stride;
+    for (int i = 0; i < stride; i++) {
+      table[base + i] = set.word(i);
+    }
+  }
+
+  private void grow() {
+    int newCapacity = capacity * 2;
+    long[] newKeys = new long[newCapacity * stride];
+    int mask = newCapacity - 1;
+    for (int slot = 0; slot < capacity; slot++) {
+      if (isFree(keys, slot)) {
+        continue;
+      }
+      int base = slot * stride;
+      int target = hash(keys, base) & mask;
+      while (!isFree(newKeys, target)) {
+        target = (target + 1) & mask;
+      }
+      System.arraycopy(keys, base, newKeys, target * stride, stride);
+    }
+    this.keys = newKeys;
+    this.capacity = newCapacity;
+  }
+
+  private int hash(TaskSet set) {
+    long h = 0;
+    for (int i = 0; i < stride; i++) {
+      h = mix(h ^ set.word(i));
+    }
+    return (int) h;
+  }
+
+  private int hash(long[] table, int base) {
+    long h = 0;
+    for (int i = 0; i < stride; i++) {
+      h = mix(h ^ table[base + i]);
+    }
+    return (int) h;
+  }
+
+  /**
+   * Finalization step of MurmurHash3, spreads the bits of the key
+   */
+  static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
@@ -0,0 +1,48 @@
+package ps2;
+
+/**
+ * Branching heuristics that can be selected from the command line
+ */
+public enum Branching {
+  IN_ORDER("inorder"),
+  VSIDS("vsids"),
+  MOMS("moms"),
+  JEROSLOW_WANG("jw");
+
+  private final String name;
+
+  private Branching(String name) {
+    this.name = name;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  BranchingHeuristic create() {
+    switch (this) {
+    case IN_ORDER:
+      return new InOrderHeuristic();
+    case MOMS:
+      return new MomsHeuristic();
+    case JEROSLOW_WANG:
+      return new JeroslowWangHeuristic();
+    default:
+      return new VsidsHeuristic();
+    }
+  }
+
+  /**
+   * Returns the heuristic with the given command line name or null if none matches
+   * @param name
+   * @return
+   */
+  public static Branching fromName(String name) {
+    for (Branching branching : values()) {
+      if (branching.name.equalsIgnoreCase(name)) {
+        return branching;
+      }
+    }
+    return null;
+  }
+}
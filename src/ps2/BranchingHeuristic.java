@@ -0,0 +1,40 @@
+package ps2;
+
+/**
+ * Chooses the literal of the next decision of the Davis Putnam search.
+ * The proposition set reports the variables involved in conflicts and the
+ * variables unassigned on backtracking, so that a heuristic can keep its
+ * own ordered structure instead of scanning every variable per decision.
+ */
+public interface BranchingHeuristic {
+  /**
+   * Called once the clauses of the set are indexed
+   * @param prop
+   */
+  void initialize(PropositionSet prop);
+
+  /**
+   * Returns the literal to make true next, or 0 if every variable is assigned
+   * @param prop
+   * @return
+   */
+  int nextLiteral(PropositionSet prop);
+
+  /**
+   * A variable took part in a conflict
+   * @param var
+   */
+  void bump(int var);
+
+  /**
+   * Called once the variables of a conflict have been bumped
+   */
+  void decay();
+
+  /**
+   * A variable is about to be unassigned by backtracking
+   * @param var
+   * @param value its value before it is undone, 1 or -1
+   */
+  void unassigned(int var, int value);
+}
@@ -0,0 +1,76 @@
+package ps2;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free exchange of learned clauses between the solvers of a portfolio.
+ * Clauses are published in a ring of fixed size: a writer claims the next
+ * sequence number with one atomic increment and stores the clause in its
+ * slot, and every reader keeps the sequence number it has read up to.
+ * A reader that falls more than the ring size behind loses the oldest
+ * clauses, which is harmless since each of them is implied by the clauses
+ * read and only speeds up the search.
+ */
+public class ClauseExchange {
+  private static final class Entry {
+    final long sequence;
+    final int source;
+    final int[] clause;
+
+    Entry(long sequence, int source, int[] clause) {
+      this.sequence = sequence;
+      this.source = source;
+      this.clause = clause;
+    }
+  }
+
+  private final AtomicReferenceArray<Entry> ring;
+  private final AtomicLong next = new AtomicLong();
+
+  /**
+   * Constructor
+   * @param capacity clauses kept for the readers
+   */
+  public ClauseExchange(int capacity) {
+    this.ring = new AtomicReferenceArray<Entry>(capacity);
+  }
+
+  /**
+   * Publishes a clause to the other solvers
+   * @param source id of the solver publishing it
+   * @param clause
+   */
+  void publish(int source, int[] clause) {
+    long sequence = next.getAndIncrement();
+    ring.set(slot(sequence), new Entry(sequence, source, clause));
+  }
+
+  /**
+   * Adds the clauses published by the other solvers since a sequence number
+   * @param reader id of the solver reading, whose own clauses are skipped
+   * @param from sequence number read up to
+   * @param clauses
+   * @return the sequence number read up to now
+   */
+  long collect(int reader, long from, List<int[]> clauses) {
+    long end = next.get();
+    long sequence = Math.max(from, end - ring.length());
+    for (; sequence < end; sequence++) {
+      Entry entry = ring.get(slot(sequence));
+      if (entry == null || entry.sequence < sequence) {
+        // claimed but not stored yet, read it next time
+        break;
+      }
+      if (entry.sequence == sequence && entry.source != reader) {
+        clauses.add(entry.clause);
+      }
+    }
+    return sequence;
+  }
+
+  private int slot(long sequence) {
+    return (int) (sequence % ring.length());
+  }
+}
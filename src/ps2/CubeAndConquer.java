@@ -0,0 +1,280 @@
+package ps2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits the clauses into cubes, partial assignments that together cover
+ * every assignment, and solves the cubes in parallel.
+ * The split is a lookahead search: at every node each candidate variable
+ * is tried with both values and propagated, and the variable whose two
+ * values assign the most variables, by the product of the two counts, is
+ * branched on. A value that gives a conflict is a failed literal, and its
+ * negation is added to the cube; a node where both values of a variable
+ * fail has no model and gives no cube.
+ * The cubes are solved by a work stealing pool with the search of
+ * evaluate, each thread reusing a fork of the indexed clauses from one
+ * cube to the next. The first cube found satisfiable stops the others, and
+ * the clauses are unsatisfiable once every cube is refuted.
+ */
+public class CubeAndConquer {
+  // cubes per thread, so that threads finishing early can steal work
+  private static final int CUBES_PER_THREAD = 16;
+  // most frequent variables tried at every node of the lookahead
+  private static final int CANDIDATES = 64;
+
+  /**
+   * A fork of the clauses and the solver working on it
+   */
+  private static class Solver {
+    final DavisPutnam dp;
+    final PropositionSet prop;
+
+    Solver(DavisPutnam dp, PropositionSet prop) {
+      this.dp = dp;
+      this.prop = prop;
+    }
+  }
+
+  private final int parallelism;
+  private int depth;
+  private boolean pureLiterals = true;
+
+  private PropositionSet clauses;
+  private int[] candidates;
+  private List<int[]> cubes;
+  private AtomicBoolean stop;
+  private AtomicReference<DavisPutnam> found;
+  private Queue<Solver> idle;
+  private Queue<DavisPutnam> solvers;
+
+  /**
+   * Constructor
+   * @param parallelism number of threads solving cubes
+   */
+  public CubeAndConquer(int parallelism) {
+    this.parallelism = Math.max(1, parallelism);
+    int cubes = this.parallelism * CUBES_PER_THREAD;
+    this.depth = 32 - Integer.numberOfLeadingZeros(cubes - 1);
+  }
+
+  /**
+   * Constructor with one thread per available processor
+   */
+  public CubeAndConquer() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Number of variables branched on by the lookahead, which makes at most
+   * 2^depth cubes
+   * @param depth
+   */
+  public void setDepth(int depth) {
+    this.depth = Math.max(0, depth);
+  }
+
+  /**
+   * Whether the solvers of the cubes assign the literals that become pure
+   * @param pureLiterals
+   */
+  public void setPureLiterals(boolean pureLiterals) {
+    this.pureLiterals = pureLiterals;
+  }
+
+  /**
+   * Number of cubes made by the last solve
+   * @return
+   */
+  public int getNumberOfCubes() {
+    return cubes.size();
+  }
+
+  /**
+   * Splits the clauses into cubes and solves them
+   * @param prop
+   * @return the solver of the satisfiable cube, or one holding the total
+   * counts of the solvers with an empty valuation if there is none
+   */
+  public DavisPutnam solve(PropositionSet prop) {
+    prop.index();
+    DavisPutnam root = new DavisPutnam();
+    root.setPureLiterals(false);
+    cubes = new ArrayList<int[]>();
+    if (!root.prepareCubes(prop)) {
+      return root;
+    }
+    clauses = prop;
+    candidates = mostFrequentVariables(prop);
+    split(prop, new int[prop.getNumberOfVariables()], 0, depth);
+
+    stop = new AtomicBoolean();
+    found = new AtomicReference<DavisPutnam>();
+    idle = new ConcurrentLinkedQueue<Solver>();
+    solvers = new ConcurrentLinkedQueue<DavisPutnam>();
+    if (!cubes.isEmpty()) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        pool.invoke(new CubeTask(0, cubes.size()));
+      } finally {
+        pool.shutdown();
+      }
+    }
+    if (found.get() != null) {
+      return found.get();
+    }
+    for (DavisPutnam dp : solvers) {
+      root.addCounts(dp);
+    }
+    return root;
+  }
+
+  private int[] mostFrequentVariables(final PropositionSet prop) {
+    Integer[] vars = new Integer[prop.getNumberOfVariables()];
+    for (int var = 1; var <= vars.length; var++) {
+      vars[var - 1] = var;
+    }
+    Arrays.sort(vars, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer v1, Integer v2) {
+        return Integer.compare(occurrences(prop, v2), occurrences(prop, v1));
+      }
+    });
+    int[] result = new int[Math.min(CANDIDATES, vars.length)];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = vars[i];
+    }
+    return result;
+  }
+
+  private static int occurrences(PropositionSet prop, int var) {
+    return prop.countOccurrences(var) + prop.countOccurrences(-var);
+  }
+
+  /**
+   * Adds the cubes that extend the current one, whose literals are
+   * assigned and propagated without conflict
+   * @param prop
+   * @param cube literals of the current cube in its first size entries
+   * @param size
+   * @param depth variables left to branch on
+   */
+  private void split(PropositionSet prop, int[] cube, int size, int depth) {
+    int best = 0;
+    long bestScore = -1;
+    if (depth > 0) {
+      for (int var : candidates) {
+        if (prop.valueOf(var) != 0) {
+          continue;
+        }
+        int positive = lookahead(prop, var);
+        int negative = lookahead(prop, -var);
+        if (positive < 0 && negative < 0) {
+          return;
+        }
+        if (positive < 0 || negative < 0) {
+          // failed literal, the other value is implied
+          int implied = positive < 0 ? -var : var;
+          prop.enqueue(implied);
+          if (!prop.propagate()) {
+            return;
+          }
+          cube[size++] = implied;
+          continue;
+        }
+        long score = (long) (positive + 1) * (negative + 1);
+        if (score > bestScore) {
+          bestScore = score;
+          best = var;
+        }
+      }
+    }
+    if (best == 0 || prop.valueOf(best) != 0) {
+      cubes.add(Arrays.copyOf(cube, size));
+      return;
+    }
+
+    int level = prop.getDecisionLevel();
+    for (int literal : new int[] {best, -best}) {
+      prop.decide(literal);
+      if (prop.propagate()) {
+        cube[size] = literal;
+        split(prop, cube, size + 1, depth - 1);
+      }
+      prop.backtrack(level);
+    }
+  }
+
+  /**
+   * Number of variables assigned by a literal and its propagation
+   * @return -1 if the propagation gives a conflict
+   */
+  private int lookahead(PropositionSet prop, int literal) {
+    int level = prop.getDecisionLevel();
+    int assigned = prop.getNumberOfAssigned();
+    prop.decide(literal);
+    boolean consistent = prop.propagate();
+    int count = prop.getNumberOfAssigned() - assigned;
+    prop.backtrack(level);
+    return consistent ? count : -1;
+  }
+
+  private void solveCube(int[] cube) {
+    if (stop.get()) {
+      return;
+    }
+    Solver solver = idle.poll();
+    if (solver == null) {
+      DavisPutnam dp = new DavisPutnam();
+      dp.setPureLiterals(pureLiterals);
+      dp.setStopFlag(stop);
+      PropositionSet fork = clauses.fork();
+      dp.prepareCubes(fork);
+      solver = new Solver(dp, fork);
+      solvers.add(dp);
+    }
+    if (solver.dp.evaluateCube(solver.prop, cube)) {
+      if (found.compareAndSet(null, solver.dp)) {
+        stop.set(true);
+      }
+      return;
+    }
+    idle.add(solver);
+  }
+
+  /**
+   * Solves the cubes of a range, splitting it in halves that idle threads
+   * can steal
+   */
+  private class CubeTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final int from;
+    private final int to;
+
+    CubeTask(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (stop.get()) {
+        return;
+      }
+      if (to - from == 1) {
+        solveCube(cubes.get(from));
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new CubeTask(from, middle), new CubeTask(middle, to));
+    }
+  }
+}
@@ -7,10 +7,32 @@ import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DavisPutnam {
+  // conflicts before the first restart, scaled by the Luby sequence
+  private static final int RESTART_BASE = 100;
+  private static final double RESTART_GROWTH = 1.5;
+  private static final double LEARNED_GROWTH = 1.1;
+  // longest learned clause given to the other solvers of a portfolio
+  private static final int SHARED_CLAUSE_SIZE = 8;
+
   private PropositionSet prop;
   private List<Literal> valuation = new ArrayList<Literal>();
+  // null for the default of the search used
+  private Branching branching;
+  private BranchingHeuristic heuristic;
+  private boolean pureLiterals = true;
+  private long numberOfDecisions;
+  private long numberOfConflicts;
+  private int restartBase = RESTART_BASE;
+  private boolean lubyRestarts = true;
+  // set when another solver has answered
+  private AtomicBoolean stop;
+  private ClauseExchange exchange;
+  private int exchangeId;
+  private long exchangeSequence;
+  private List<int[]> sharedClauses = new ArrayList<int[]>();
 
   /**
    * Read the input file and construct objects
@@ -22,7 +44,7 @@ public class DavisPutnam {
       f.read();
       this.prop = f.getPropositionSet();
     } catch (IOException e) {
-      System.out.println("Bad Input file path");
+      System.out.println("Bad Input file: " + e.getMessage());
     }
   }
 
@@ -56,84 +78,324 @@ public class DavisPutnam {
     return this.valuation;
   }
 
+  void setBranching(Branching branching) {
+    this.branching = branching;
+  }
+
+  /**
+   * Uses a heuristic already configured instead of one of setBranching
+   * @param heuristic
+   */
+  void setHeuristic(BranchingHeuristic heuristic) {
+    this.heuristic = heuristic;
+  }
+
+  /**
+   * Restart policy of evaluateCDCL: the base number of conflicts is scaled
+   * by the Luby sequence, or grows geometrically after every restart
+   * @param base
+   * @param luby
+   */
+  void setRestarts(int base, boolean luby) {
+    this.restartBase = base;
+    this.lubyRestarts = luby;
+  }
+
+  /**
+   * Flag that makes evaluateCDCL and evaluateCube give up as soon as it is set
+   * @param stop
+   */
+  void setStopFlag(AtomicBoolean stop) {
+    this.stop = stop;
+  }
+
   /**
-   * Resolve the set with the given literal.
-   * Remove if its truth
-   * @param propositionSet
-   * @param literal
+   * Exchange through which evaluateCDCL gives its short learned clauses to
+   * the other solvers and adds theirs at every restart
+   * @param exchange
+   * @param id of this solver in the exchange
    */
-  void resolve(PropositionSet propositionSet, Literal literal) {
-    this.valuation.add(literal);
-    propositionSet.resolve(literal);
+  void setExchange(ClauseExchange exchange, int id) {
+    this.exchange = exchange;
+    this.exchangeId = id;
   }
 
   /**
-   * Compute the Davis Putnam algorithm and return the result
+   * Whether evaluate assigns the literals that become pure during the
+   * search. Keeping the occurrence counters costs a walk over the clauses
+   * of every assigned literal, which instances with few pure literals,
+   * such as random 3-SAT, do not pay back.
+   * @param pureLiterals
+   */
+  void setPureLiterals(boolean pureLiterals) {
+    this.pureLiterals = pureLiterals;
+  }
+
+  long getNumberOfDecisions() {
+    return numberOfDecisions;
+  }
+
+  long getNumberOfConflicts() {
+    return numberOfConflicts;
+  }
+
+  /**
+   * Compute the Davis Putnam algorithm and return the result.
+   * Unit clauses are assigned first, then the search branches on the
+   * unassigned variables, the watched literals of the proposition set
+   * propagate every choice and the literals that become pure are assigned.
    * @return
    */
   boolean evaluate(PropositionSet prop) {
+    if (!prepare(prop, Branching.IN_ORDER, pureLiterals) || !search(prop, 0)) {
+      return false;
+    }
+    recordValuation(prop);
+    return true;
+  }
 
-    while(true) {      
-      // Success case. Empty prop set
-      if(prop.isEmpty()) {
-        this.valuation.addAll(prop.getAtoms());
-        return true;
-      }
+  /**
+   * Prepares a proposition set for evaluateCube, which can then be called
+   * for any number of cubes, and propagates the unit clauses
+   * @param prop
+   * @return false if the clauses are already contradictory
+   */
+  boolean prepareCubes(PropositionSet prop) {
+    return prepare(prop, Branching.IN_ORDER, pureLiterals) && prop.propagate();
+  }
 
-      // Failure case. Empty clause
-      if(prop.containsEmptyClause()) {
+  /**
+   * The search of evaluate restricted to the assignments that extend a
+   * cube. The literals of the cube are assumed in a level of their own
+   * that the search never backtracks below, and the set is brought back to
+   * level 0 first, so one set serves one cube after the other.
+   * @param prop prepared by prepareCubes
+   * @param cube
+   * @return false if no assignment extending the cube satisfies the clauses
+   * or the stop flag was set
+   */
+  boolean evaluateCube(PropositionSet prop, int[] cube) {
+    prop.backtrack(0);
+    prop.openLevel();
+    for (int literal : cube) {
+      if (!prop.enqueue(literal)) {
         return false;
       }
+    }
+    if (!search(prop, 1)) {
+      return false;
+    }
+    recordValuation(prop);
+    return true;
+  }
+
+  /**
+   * Adds the decisions and conflicts of another solver to those of this one
+   * @param other
+   */
+  void addCounts(DavisPutnam other) {
+    numberOfDecisions += other.numberOfDecisions;
+    numberOfConflicts += other.numberOfConflicts;
+  }
 
-      // Find if there is pure literal
-      Literal pureLiteral = prop.findPureLiteral();
+  /**
+   * Conflict driven clause learning alternative to evaluate. Every conflict
+   * is analyzed into a clause that is learned, and the search jumps back to
+   * the level where that clause forces a new assignment instead of flipping
+   * the last decision. The search restarts from level 0 after a number of
+   * conflicts that follows the Luby sequence, and the less active half of
+   * the learned clauses is deleted when there are too many of them.
+   * @param prop
+   * @return false if the clauses cannot be satisfied or the stop flag was set
+   */
+  boolean evaluateCDCL(PropositionSet prop) {
+    if (!prepare(prop, Branching.VSIDS, false)) {
+      return false;
+    }
+    int restarts = 0;
+    double restartInterval = restartBase;
+    double conflictsToRestart = restartInterval;
+    double maxLearned = prop.getNumberOfClauses() / 3.0 + 100;
 
-      if (pureLiteral != null) {
-        this.resolve(prop, pureLiteral);
-      } else {
-        // No pure literal, check for singleton clause
-        Literal singletonLiteral = prop.findSingletonClause();
-        if (singletonLiteral != null) {
-          this.resolve(prop, singletonLiteral);          
+    while (true) {
+      if (stop != null && stop.get()) {
+        return false;
+      }
+      if (!prop.propagate()) {
+        if (prop.getDecisionLevel() == 0) {
+          return false;
+        }
+        numberOfConflicts++;
+        prop.backtrack(prop.analyzeConflict());
+        if (exchange != null && prop.getLearnedClauseSize() <= SHARED_CLAUSE_SIZE) {
+          exchange.publish(exchangeId, prop.copyLearnedClause());
+        }
+        prop.learn();
+        conflictsToRestart--;
+        continue;
+      }
+
+      if (conflictsToRestart <= 0) {
+        prop.backtrack(0);
+        restarts++;
+        if (lubyRestarts) {
+          conflictsToRestart = restartBase * luby(restarts);
         } else {
-          break;
+          restartInterval *= RESTART_GROWTH;
+          conflictsToRestart = restartInterval;
         }
+        if (prop.getNumberOfLearnedClauses() > maxLearned) {
+          prop.reduceLearnedClauses();
+          maxLearned *= LEARNED_GROWTH;
+        }
+        if (exchange != null && !addSharedClauses(prop)) {
+          return false;
+        }
+        continue;
       }
-    } // while
 
-    PropositionSet propSetClone = prop.clone();
+      int literal = heuristic.nextLiteral(prop);
+      if (literal == 0) {
+        recordValuation(prop);
+        return true;
+      }
+      numberOfDecisions++;
+      prop.decide(literal);
+    }
+  }
 
-    // pick the first atom
-    Literal atom = propSetClone.getAtom();
+  /**
+   * Adds the clauses the other solvers published since the last call
+   * @param prop at level 0
+   * @return false if one of them is false at level 0
+   */
+  private boolean addSharedClauses(PropositionSet prop) {
+    sharedClauses.clear();
+    exchangeSequence = exchange.collect(exchangeId, exchangeSequence, sharedClauses);
+    for (int[] clause : sharedClauses) {
+      if (!prop.addSharedClause(clause)) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    // assign atom true
-    this.resolve(propSetClone, atom);
+  /**
+   * Element i of the Luby sequence 1 1 2 1 1 2 4 1 1 2 ..., counted from 0
+   * @param i
+   * @return
+   */
+  static int luby(int i) {
+    int size = 1;
+    int power = 0;
+    while (size < i + 1) {
+      power++;
+      size = 2 * size + 1;
+    }
+    while (size - 1 != i) {
+      size = (size - 1) >> 1;
+      power--;
+      i = i % size;
+    }
+    return 1 << power;
+  }
 
-    // recursively run on prop set and validation
-    DavisPutnam recurDP = new DavisPutnam();
-    boolean satisfied = recurDP.evaluate(propSetClone);
+  /**
+   * Indexes the clauses and assigns the unit clauses and pure literals.
+   * Pure literals are either tracked through the whole search or only
+   * assigned here: conflict analysis needs a reason for every assignment
+   * below a decision, which a pure literal does not have.
+   * @param prop
+   * @param defaultBranching used unless another heuristic was set
+   * @param trackPure find the literals that become pure during the search
+   * @return false if the clauses are already contradictory
+   */
+  private boolean prepare(PropositionSet prop, Branching defaultBranching, boolean trackPure) {
+    prop.index();
+    if (trackPure) {
+      prop.trackPureLiterals();
+    }
+    if (heuristic == null) {
+      heuristic = (branching != null ? branching : defaultBranching).create();
+    }
+    heuristic.initialize(prop);
+    prop.setHeuristic(heuristic);
+    if (prop.containsEmptyClause()) {
+      return false;
+    }
+    for (int unit : prop.getUnits()) {
+      if (!prop.enqueue(unit)) {
+        return false;
+      }
+    }
+    if (!trackPure) {
+      for (int pure : prop.findPureLiterals()) {
+        prop.enqueue(pure);
+      }
+    }
+    return true;
+  }
 
-    // if satisfied
-    if (satisfied) {
-      this.valuation.addAll(recurDP.getValidation());
-      return true;
-    } else {
-      // assign atom false
-      valuation.remove(atom);
+  private void recordValuation(PropositionSet prop) {
+    for (int var = 1; var <= prop.getNumberOfVariables(); var++) {
+      if (prop.occurs(var)) {
+        this.valuation.add(new Literal(prop.valueOf(var) > 0 ? var : -var));
+      }
+    }
+  }
 
-      // propagate atom
-      propSetClone = prop.clone();      
-      this.resolve(propSetClone, atom.negative());
+  /**
+   * Chronological backtracking without recursion. Every decision opens a
+   * level on the trail of the proposition set, with the literal chosen by
+   * the branching heuristic. On a conflict the trail is undone to the
+   * deepest decision whose other sign has not been tried, and that sign
+   * is assigned in its place.
+   * @param prop
+   * @param baseLevel level of the assignments that are never undone
+   * @return true if the assignment was extended to satisfy every clause
+   */
+  private boolean search(PropositionSet prop, int baseLevel) {
+    int n = prop.getNumberOfVariables();
+    int[] decisions = new int[n + 2];
+    boolean[] flipped = new boolean[n + 2];
 
-      // recurse for false valuation
-      recurDP = new DavisPutnam();      
-      satisfied = recurDP.evaluate(propSetClone);
+    while (true) {
+      if (stop != null && stop.get()) {
+        return false;
+      }
+      if (!prop.propagate()) {
+        numberOfConflicts++;
+        prop.bumpConflict();
+        int level = prop.getDecisionLevel();
+        while (level > baseLevel && flipped[level]) {
+          level--;
+        }
+        if (level == baseLevel) {
+          return false;
+        }
+        // assign atom false
+        prop.backtrack(level - 1);
+        decisions[level] = -decisions[level];
+        flipped[level] = true;
+        prop.decide(decisions[level]);
+        continue;
+      }
+
+      // a pure literal never makes a clause false, so it needs no branch
+      int pure = prop.nextPureLiteral();
+      if (pure != 0) {
+        prop.enqueue(pure);
+        continue;
+      }
 
-      if (satisfied) {
-        this.valuation.addAll(recurDP.getValidation());
+      int literal = heuristic.nextLiteral(prop);
+      if (literal == 0) {
         return true;
       }
-      return false;
+      numberOfDecisions++;
+      prop.decide(literal);
+      decisions[prop.getDecisionLevel()] = literal;
+      flipped[prop.getDecisionLevel()] = false;
     }
   }
 
@@ -144,8 +406,48 @@ public class DavisPutnam {
     }
 
     DavisPutnam dp = new DavisPutnam();
+    boolean cdcl = false;
+    int solvers = 0;
+    int cubeThreads = 0;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equalsIgnoreCase("cdcl")) {
+        cdcl = true;
+      } else if (args[i].equalsIgnoreCase("portfolio")) {
+        solvers = Runtime.getRuntime().availableProcessors();
+      } else if (args[i].toLowerCase().startsWith("portfolio=")) {
+        solvers = Integer.parseInt(args[i].substring("portfolio=".length()));
+      } else if (args[i].equalsIgnoreCase("cubes")) {
+        cubeThreads = Runtime.getRuntime().availableProcessors();
+      } else if (args[i].toLowerCase().startsWith("cubes=")) {
+        cubeThreads = Integer.parseInt(args[i].substring("cubes=".length()));
+      } else if (args[i].equalsIgnoreCase("nopure")) {
+        dp.setPureLiterals(false);
+      } else if (Branching.fromName(args[i]) != null) {
+        dp.setBranching(Branching.fromName(args[i]));
+      } else {
+        System.out.println("Unknown argument: " + args[i] +
+            ". Expected <input> [cdcl] [inorder|vsids|moms|jw] [nopure] [portfolio[=solvers]] [cubes[=threads]]");
+        return;
+      }
+    }
     dp.readInput(args[0]);
-    dp.evaluate(dp.prop);
+    if (dp.prop == null) {
+      return;
+    }
+    if (solvers > 0) {
+      // the valuation and counts are those of the solver that answered
+      dp = new Portfolio(solvers).solve(dp.prop);
+    } else if (cubeThreads > 0) {
+      CubeAndConquer cc = new CubeAndConquer(cubeThreads);
+      cc.setPureLiterals(dp.pureLiterals);
+      dp = cc.solve(dp.prop);
+    } else if (cdcl) {
+      dp.evaluateCDCL(dp.prop);
+    } else {
+      dp.evaluate(dp.prop);
+    }
     dp.writeOutput();
+    System.out.println("Decisions: " + dp.getNumberOfDecisions() +
+        " Conflicts: " + dp.getNumberOfConflicts());
   }
 }
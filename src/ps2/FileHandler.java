@@ -1,48 +1,163 @@
 package ps2;
 
-import java.io.BufferedReader;
-import java.io.DataInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
+/**
+ * Reader of the clauses in DIMACS CNF: lines starting with c are comments,
+ * the p cnf header gives the number of variables and clauses, and every
+ * clause is a list of literals ended by 0 that can span several lines.
+ * Files without a header and without any 0 are read in the original input
+ * format, one clause per line.
+ * The file is mapped in memory a window at a time and the literals are
+ * parsed from the bytes straight into the proposition set, so no line or
+ * token is ever created.
+ */
 public class FileHandler {
+  // bytes mapped at once, which keeps files above 2 GB readable
+  private static final long WINDOW = 1L << 26;
+
   private File inputFile;
   private PropositionSet prop;
-  
+
+  // parser state, kept across windows
+  private int line;
+  private boolean lineStart;
+  private boolean comment;
+  private boolean header;
+  private boolean endOfClauses;
+  private boolean lineClauses;
+  private boolean inNumber;
+  private boolean negative;
+  private long number;
+  private int clauseSize;
+  private StringBuilder headerLine;
+
   FileHandler(String filePath) {
     inputFile = new File(filePath);
     prop = new PropositionSet();
   }
-  
+
   /**
-   * Read the input file from the path and construct 
+   * Read the input file from the path and construct
    * necessary data structures for the DP algorithm
    * @throws IOException
    */
-  void read() throws IOException{
-    FileInputStream fstream = new FileInputStream(inputFile);
-    DataInputStream in = new DataInputStream(fstream);
-    BufferedReader br = new BufferedReader(new InputStreamReader(in));
-    
-    String line;
-    int i = 0;
-    
-    while((line = br.readLine()) != null) {
-      String[] tokens = line.split(" ");
-      Clause clause = new Clause(i);
-      for (String token : tokens) {
-        Literal literal = new Literal(Integer.parseInt(token));
-        clause.addLiteral(literal);
-        prop.addAtom(literal);
+  void read() throws IOException {
+    line = 1;
+    lineStart = true;
+    lineClauses = true;
+    try (FileChannel channel = FileChannel.open(inputFile.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size && !endOfClauses; position += WINDOW) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+            position, Math.min(WINDOW, size - position));
+        int limit = buffer.limit();
+        for (int i = 0; i < limit && !endOfClauses; i++) {
+          parse(buffer.get(i));
+        }
       }
-      prop.addClause(clause);      
-      i++;
-    }    
-    br.close();
+    }
+    if (header) {
+      readHeader(headerLine.toString().trim());
+    }
+    endNumber();
+    if (clauseSize > 0) {
+      // the last clause may miss its 0
+      prop.endClause();
+    }
   }
-  
+
+  private void parse(byte b) throws IOException {
+    if (b == '\n') {
+      endLine();
+      return;
+    }
+    if (comment) {
+      return;
+    }
+    if (header) {
+      headerLine.append((char) b);
+      return;
+    }
+    if (b == ' ' || b == '\t' || b == '\r') {
+      endNumber();
+      return;
+    }
+    if (b >= '0' && b <= '9') {
+      number = number * 10 + (b - '0');
+      if (number > Integer.MAX_VALUE) {
+        throw new IOException("Literal too large at line " + line);
+      }
+      inNumber = true;
+    } else if (b == '-' && !inNumber && !negative) {
+      negative = true;
+    } else if (lineStart && b == 'c') {
+      comment = true;
+    } else if (lineStart && b == 'p') {
+      header = true;
+      headerLine = new StringBuilder("p");
+    } else if (lineStart && b == '%') {
+      // end marker of the SATLIB benchmarks
+      endOfClauses = true;
+    } else {
+      throw new IOException("Unexpected character '" + (char) b + "' at line " + line);
+    }
+    lineStart = false;
+  }
+
+  private void endNumber() throws IOException {
+    if (!inNumber) {
+      if (negative) {
+        throw new IOException("Missing literal after '-' at line " + line);
+      }
+      return;
+    }
+    if (number == 0) {
+      prop.endClause();
+      clauseSize = 0;
+      lineClauses = false;
+    } else {
+      prop.addLiteral(negative ? (int) -number : (int) number);
+      clauseSize++;
+    }
+    inNumber = false;
+    negative = false;
+    number = 0;
+  }
+
+  private void endLine() throws IOException {
+    if (header) {
+      readHeader(headerLine.toString().trim());
+      header = false;
+    }
+    endNumber();
+    if (lineClauses && clauseSize > 0) {
+      prop.endClause();
+      clauseSize = 0;
+    }
+    comment = false;
+    lineStart = true;
+    line++;
+  }
+
+  private void readHeader(String text) throws IOException {
+    String[] tokens = text.split("\\s+");
+    if (tokens.length != 4 || !tokens[0].equals("p") || !tokens[1].equals("cnf")) {
+      throw new IOException("Bad header at line " + line + ": " + text);
+    }
+    try {
+      Integer.parseInt(tokens[2]);
+      Integer.parseInt(tokens[3]);
+    } catch (NumberFormatException e) {
+      throw new IOException("Bad header at line " + line + ": " + text);
+    }
+    lineClauses = false;
+  }
+
   /**
    * Getter of the proposition set that is initialized by the read
    * @return
@@ -0,0 +1,17 @@
+package ps2;
+
+/**
+ * Variables in increasing order, each with the sign it first occurs with
+ */
+public class InOrderHeuristic extends StaticHeuristic {
+  @Override
+  double[][] literalScores(PropositionSet prop) {
+    int n = prop.getNumberOfVariables();
+    return new double[2][n + 1];
+  }
+
+  @Override
+  double variableScore(double positive, double negative) {
+    return 0;
+  }
+}
@@ -0,0 +1,28 @@
+package ps2;
+
+/**
+ * Two sided Jeroslow-Wang: every occurrence of a literal scores 2^-k for a
+ * clause of k literals, so short clauses weigh the most. Variables with
+ * the highest total of both literals come first, with the sign of the
+ * literal that scores higher.
+ */
+public class JeroslowWangHeuristic extends StaticHeuristic {
+  @Override
+  double[][] literalScores(PropositionSet prop) {
+    double[][] scores = new double[2][prop.getNumberOfVariables() + 1];
+    for (int c = 0; c < prop.getNumberOfClauses(); c++) {
+      int size = prop.getClauseSize(c);
+      double weight = Math.pow(2, -size);
+      for (int k = 0; k < size; k++) {
+        int lit = prop.getLiteral(c, k);
+        scores[lit > 0 ? 0 : 1][Math.abs(lit)] += weight;
+      }
+    }
+    return scores;
+  }
+
+  @Override
+  double variableScore(double positive, double negative) {
+    return positive + negative;
+  }
+}
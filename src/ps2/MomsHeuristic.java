@@ -0,0 +1,36 @@
+package ps2;
+
+/**
+ * Maximum occurrences in clauses of minimum size: literals are counted in
+ * the shortest clauses of the set only, and variables occurring often with
+ * both signs come first, since either value shortens many of those clauses.
+ */
+public class MomsHeuristic extends StaticHeuristic {
+  // weight of the occurrences with both signs over the total
+  private static final double K = 1024;
+
+  @Override
+  double[][] literalScores(PropositionSet prop) {
+    double[][] scores = new double[2][prop.getNumberOfVariables() + 1];
+    int shortest = Integer.MAX_VALUE;
+    for (int c = 0; c < prop.getNumberOfClauses(); c++) {
+      shortest = Math.min(shortest, prop.getClauseSize(c));
+    }
+    for (int c = 0; c < prop.getNumberOfClauses(); c++) {
+      int size = prop.getClauseSize(c);
+      if (size != shortest) {
+        continue;
+      }
+      for (int k = 0; k < size; k++) {
+        int lit = prop.getLiteral(c, k);
+        scores[lit > 0 ? 0 : 1][Math.abs(lit)]++;
+      }
+    }
+    return scores;
+  }
+
+  @Override
+  double variableScore(double positive, double negative) {
+    return (positive + negative) * K + positive * negative;
+  }
+}
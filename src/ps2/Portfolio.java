@@ -0,0 +1,99 @@
+package ps2;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs several conflict driven solvers on the same clauses in parallel and
+ * keeps the first answer. The solvers search forks of one indexed
+ * proposition set, so the clauses read are held once, and they differ in
+ * the seed of the initial variable order, the value tried first and the
+ * restart policy. The short clauses they learn go through a clause
+ * exchange, and every solver adds those of the others when it restarts.
+ * As soon as one solver answers, the others are stopped.
+ */
+public class Portfolio {
+  private static final int EXCHANGE_CAPACITY = 1 << 14;
+  // restart bases of the configurations, in turn
+  private static final int[] RESTART_BASES = {100, 512, 50};
+
+  private final int numberOfSolvers;
+
+  /**
+   * Constructor
+   * @param numberOfSolvers
+   */
+  public Portfolio(int numberOfSolvers) {
+    this.numberOfSolvers = Math.max(1, numberOfSolvers);
+  }
+
+  /**
+   * Constructor with one solver per available processor
+   */
+  public Portfolio() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Solver i of the portfolio. The first one is the default solver, and
+   * the next ones cycle through the initial phases and restart policies.
+   * @param i
+   * @return
+   */
+  DavisPutnam configure(int i) {
+    DavisPutnam dp = new DavisPutnam();
+    VsidsHeuristic heuristic = new VsidsHeuristic();
+    if (i > 0) {
+      heuristic.setSeed(i);
+      // first occurrence, negative, positive
+      heuristic.setInitialPhase(i % 3 == 0 ? 0 : i % 3 == 1 ? -1 : 1);
+    }
+    dp.setHeuristic(heuristic);
+    dp.setRestarts(RESTART_BASES[i % RESTART_BASES.length], i % 4 != 3);
+    return dp;
+  }
+
+  /**
+   * Searches the clauses with every solver of the portfolio
+   * @param prop
+   * @return the solver that answered, whose valuation is empty if the
+   * clauses cannot be satisfied
+   */
+  public DavisPutnam solve(PropositionSet prop) {
+    prop.index();
+    final AtomicBoolean stop = new AtomicBoolean();
+    ClauseExchange exchange = new ClauseExchange(EXCHANGE_CAPACITY);
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfSolvers);
+    CompletionService<DavisPutnam> completion = new ExecutorCompletionService<DavisPutnam>(executor);
+    try {
+      for (int i = 0; i < numberOfSolvers; i++) {
+        final DavisPutnam dp = configure(i);
+        final PropositionSet fork = prop.fork();
+        dp.setStopFlag(stop);
+        dp.setExchange(exchange, i);
+        completion.submit(new Callable<DavisPutnam>() {
+          @Override
+          public DavisPutnam call() {
+            dp.evaluateCDCL(fork);
+            return dp;
+          }
+        });
+      }
+      // no solver stops before the first answer, so it is a real one
+      return completion.take().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while solving", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A solver of the portfolio failed", e.getCause());
+    } finally {
+      stop.set(true);
+      executor.shutdown();
+    }
+  }
+}
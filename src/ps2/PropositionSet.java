@@ -1,138 +1,866 @@
 package ps2;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
+/**
+ * The clause database of the Davis Putnam procedure.
+ * Clauses are stored in one flat int arena, DIMACS style: a literal is the
+ * signed number of its variable. While reading, each clause is closed by a
+ * 0. Indexing then compacts the arena in place, and clause c spans
+ * arena[start[c]] to arena[start[c + 1]] - 1. Every literal has the list of
+ * clauses in which it is one of the two watched literals. When a literal
+ * becomes false only the clauses watching it are visited, so propagation
+ * costs grow with the clauses affected, not with the size of the set, and
+ * no object is allocated in the hot loop.
+ * Assignments are pushed on a trail that is split in decision levels, and
+ * backtracking pops the trail back to the start of a level. The watches
+ * stay valid when assignments are undone in the reverse order they were
+ * made, so backtracking never touches them.
+ * Every implied assignment keeps the clause that forced it, which lets a
+ * conflict be analyzed into a learned clause. Learned clauses go to a
+ * second arena of their own, numbered after the clauses read.
+ * The clauses read never change once indexed, so fork can give several
+ * solvers their own assignment, watches and learned clauses over one
+ * shared copy of them.
+ * For pure literal elimination during the search, every literal can also
+ * count the clauses not yet satisfied that contain it. The counters are
+ * updated as clauses become satisfied and unsatisfied, and a literal
+ * whose negation drops to no occurrence is queued as pure.
+ */
 public class PropositionSet {
+  private static final int INITIAL_WATCHES = 4;
+  private static final int INITIAL_ARENA = 1024;
+  // learned clauses and their literals held before the database grows
+  private static final int INITIAL_LEARNED_CLAUSES = 64;
+  private static final int INITIAL_LEARNED_LITERALS = 1024;
+  static final int NO_REASON = -1;
+  private static final double CLAUSE_DECAY = 0.999;
+
+  private int[] arena = new int[INITIAL_ARENA];
+  private int arenaSize;
+  private int numberOfInputClauses;
+  private int numberOfVariables;
+  private boolean indexed;
+
+  // indexed form, built by index() and shared by the forks
+  private int[] start;
+  private int numberOfOriginalClauses;
+  private int[] phase;
+  // clauses containing each literal, by literal code
+  private int[] literalCounts;
+  private boolean hasEmptyClause;
+  private List<Integer> units;
+
+  // state of the search on this set
+  private int[] learnedArena;
+  private int learnedArenaSize;
+  private int[] learnedStart;
+  private int numberOfClauses;
+  private int[] watch0;
+  private int[] watch1;
+  private double[] activity;
+  private double activityIncrement = 1;
+  private int[][] watches;
+  private int[] watchCount;
+  private int[] values;
+  // clause that implied each variable and the level it was assigned at
+  private int[] reason;
+  private int[] levelOf;
+  private int conflict = NO_REASON;
+  private boolean[] seen;
+  private int[] learned;
+  private int learnedSize;
+
+  // clauses containing each literal, by literal code, when tracking purity
+  private int[][] occurrenceLists;
+  // clauses not satisfied that contain each literal, by literal code
+  private int[] occurrences;
+  // true literals of each original clause
+  private int[] trueLiterals;
+  private int[] pureQueue;
+  private int pureQueueSize;
+  private int[] trail;
+  private int trailSize;
+  // trail entries before this one have been propagated
+  private int propagated;
+  // trail size when each decision level was opened
+  private int[] levelStart;
+  private int level;
+  private BranchingHeuristic heuristic;
 
-  private List<Clause> clauses = new ArrayList<Clause>();
-  private Set<Literal> atoms = new HashSet<Literal>();
-  
   /**
    * Constructor initialization
    */
   PropositionSet() {
-    clauses = new ArrayList<Clause>();
-    atoms = new HashSet<Literal>();      
   }
 
   /**
-   * Returns boolean if the clause is empty
+   * Copy of the clauses read, which must not be indexed yet
+   */
+  @Override
+  public PropositionSet clone() {
+    if (indexed) {
+      throw new IllegalStateException("An indexed proposition set cannot be copied");
+    }
+    PropositionSet ps = new PropositionSet();
+    ps.arena = Arrays.copyOf(arena, arenaSize);
+    ps.arenaSize = arenaSize;
+    ps.numberOfInputClauses = numberOfInputClauses;
+    ps.numberOfVariables = numberOfVariables;
+    return ps;
+  }
+
+  /**
+   * A new set over the same indexed clauses, with nothing assigned or
+   * learned. The clauses are shared rather than copied, so each fork only
+   * costs the watches and the arrays indexed by variable, and forks can be
+   * searched by different threads.
    * @return
    */
-  boolean containsEmptyClause() {
-    for (Clause clause : clauses) {
-      if (clause.isEmpty()) {
-        return true;
-      }
+  PropositionSet fork() {
+    if (!indexed) {
+      throw new IllegalStateException("Only an indexed proposition set can be forked");
+    }
+    PropositionSet ps = new PropositionSet();
+    ps.indexed = true;
+    ps.arena = arena;
+    ps.arenaSize = arenaSize;
+    ps.numberOfInputClauses = numberOfInputClauses;
+    ps.numberOfVariables = numberOfVariables;
+    ps.start = start;
+    ps.numberOfOriginalClauses = numberOfOriginalClauses;
+    ps.phase = phase;
+    ps.literalCounts = literalCounts;
+    ps.hasEmptyClause = hasEmptyClause;
+    ps.units = units;
+    ps.initializeSearch();
+    return ps;
+  }
+
+  /**
+   * Appends a literal to the clause being read
+   * @param literal signed variable number, not 0
+   */
+  void addLiteral(int literal) {
+    if (arenaSize == arena.length) {
+      arena = Arrays.copyOf(arena, arena.length * 2);
     }
-    return false;
+    arena[arenaSize++] = literal;
+    numberOfVariables = Math.max(numberOfVariables, Math.abs(literal));
   }
 
   /**
-   * Is the clause empty?
+   * Closes the clause being read
+   */
+  void endClause() {
+    if (arenaSize == arena.length) {
+      arena = Arrays.copyOf(arena, arena.length * 2);
+    }
+    arena[arenaSize++] = 0;
+    numberOfInputClauses++;
+  }
+
+  /**
+   * Appends a whole clause
+   * @param literals
+   */
+  void addClause(int... literals) {
+    for (int literal : literals) {
+      addLiteral(literal);
+    }
+    endClause();
+  }
+
+  /**
+   * Whether a variable occurs in any of the clauses read
+   * @param var
    * @return
    */
-  boolean isEmpty() {
-    return clauses.isEmpty();
+  boolean occurs(int var) {
+    return phase[var] != 0;
   }
 
-  @Override
-  public PropositionSet clone() {
-    PropositionSet ps = new PropositionSet();
+  /**
+   * Compacts the clauses read and builds the watch lists.
+   * Repeated literals are merged and clauses holding a literal and its
+   * negation are dropped, since they are always true. Clauses with a single
+   * literal are not watched; they are returned by getUnits instead.
+   * Does nothing once the set is indexed.
+   */
+  void index() {
+    if (indexed) {
+      return;
+    }
+    int n = numberOfVariables;
+    indexed = true;
+    phase = new int[n + 1];
+    units = new ArrayList<Integer>();
+    hasEmptyClause = false;
+
+    start = new int[numberOfInputClauses + 1];
+    // signed number of the last clause each variable was seen in
+    int[] stamps = new int[n + 1];
+    int stamp = 0;
+    int write = 0;
+    int read = 0;
+    int c = 0;
+    while (read < arenaSize) {
+      int begin = write;
+      boolean tautology = false;
+      stamp++;
+      for (int lit = arena[read++]; lit != 0; lit = arena[read++]) {
+        int var = Math.abs(lit);
+        int signed = lit > 0 ? stamp : -stamp;
+        if (phase[var] == 0) {
+          // first polarity seen, the one tried first when branching
+          phase[var] = lit > 0 ? 1 : -1;
+        }
+        if (tautology || stamps[var] == signed) {
+          continue;
+        }
+        if (stamps[var] == -signed) {
+          tautology = true;
+          continue;
+        }
+        stamps[var] = signed;
+        arena[write++] = lit;
+      }
+      int size = write - begin;
+      if (tautology) {
+        write = begin;
+      } else if (size == 0) {
+        hasEmptyClause = true;
+      } else if (size == 1) {
+        units.add(arena[begin]);
+        write = begin;
+      } else {
+        start[c++] = begin;
+      }
+    }
+    arenaSize = write;
+    start[c] = write;
+    numberOfOriginalClauses = c;
 
-    for (Clause clause : this.clauses) {
-      ps.addClause(clause.clone());
+    literalCounts = new int[2 * n + 2];
+    for (int i = 0; i < arenaSize; i++) {
+      literalCounts[code(arena[i])]++;
     }
+    initializeSearch();
+  }
+
+  /**
+   * Allocates the state of a search and watches the first two literals of
+   * every clause
+   */
+  private void initializeSearch() {
+    int n = numberOfVariables;
+    int c = numberOfOriginalClauses;
+    values = new int[n + 1];
+    trail = new int[n + 1];
+    trailSize = 0;
+    propagated = 0;
+    // one more level for the assumptions of a cube
+    levelStart = new int[n + 2];
+    level = 0;
+    reason = new int[n + 1];
+    levelOf = new int[n + 1];
+    seen = new boolean[n + 1];
+    learned = new int[n + 1];
+    watches = new int[2 * n + 2][];
+    watchCount = new int[2 * n + 2];
+    occurrences = literalCounts.clone();
+    occurrenceLists = null;
 
-    for (Literal atom : atoms) {
-      ps.addAtom(atom);
+    learnedArena = new int[INITIAL_LEARNED_LITERALS];
+    learnedArenaSize = 0;
+    learnedStart = new int[INITIAL_LEARNED_CLAUSES + 1];
+    numberOfClauses = c;
+    watch0 = new int[c];
+    watch1 = new int[c];
+    activity = new double[c];
+    for (int i = 0; i < c; i++) {
+      watch0[i] = 0;
+      watch1[i] = 1;
+      addWatch(arena[start[i]], i);
+      addWatch(arena[start[i] + 1], i);
     }
+  }
 
-    return ps;
+  /**
+   * Keeps the occurrence counters up to date on every assignment from now
+   * on, so that nextPureLiteral finds the literals that become pure.
+   * Must be called before anything is assigned.
+   */
+  void trackPureLiterals() {
+    int[] count = new int[occurrences.length];
+    occurrenceLists = new int[occurrences.length][];
+    for (int code = 0; code < occurrences.length; code++) {
+      occurrenceLists[code] = new int[occurrences[code]];
+    }
+    for (int c = 0; c < numberOfOriginalClauses; c++) {
+      for (int i = start[c]; i < start[c + 1]; i++) {
+        int code = code(arena[i]);
+        occurrenceLists[code][count[code]++] = c;
+      }
+    }
+    trueLiterals = new int[numberOfOriginalClauses];
+    pureQueue = new int[numberOfVariables + 1];
+    pureQueueSize = 0;
+    for (int var = 1; var <= numberOfVariables; var++) {
+      queueIfPure(var);
+      queueIfPure(-var);
+    }
+  }
+
+  private void queueIfPure(int literal) {
+    if (occurrences[code(-literal)] == 0 && occurrences[code(literal)] > 0) {
+      if (pureQueueSize == pureQueue.length) {
+        pureQueue = Arrays.copyOf(pureQueue, pureQueueSize * 2);
+      }
+      pureQueue[pureQueueSize++] = literal;
+    }
   }
 
   /**
-   * Returns the first singleton clause identified
+   * Returns an unassigned literal that is pure in the clauses not yet
+   * satisfied, or 0 if there is none
    * @return
    */
-  Literal findSingletonClause() {
-    for (Clause clause : clauses) {
-      if (clause.isSingleton()) {
-        return clause.getLiterals().get(0);
+  int nextPureLiteral() {
+    while (pureQueueSize > 0) {
+      int literal = pureQueue[--pureQueueSize];
+      if (valueOf(literal) == 0 && occurrences[code(-literal)] == 0) {
+        return literal;
       }
     }
-    return null;
+    return 0;
   }
 
-  void resolve(Literal literal) {
-    this.atoms.remove(literal);
-    this.atoms.remove(literal.negative());
+  /**
+   * The clauses of a literal made true are satisfied: unless another
+   * literal already satisfied them, their literals lose an occurrence
+   */
+  private void satisfy(int literal) {
+    for (int c : occurrenceLists[code(literal)]) {
+      if (trueLiterals[c]++ == 0) {
+        for (int i = start[c]; i < start[c + 1]; i++) {
+          if (--occurrences[code(arena[i])] == 0) {
+            queueIfPure(-arena[i]);
+          }
+        }
+      }
+    }
+  }
 
-    // remove satisfied clauses
-    List<Clause> removable = new ArrayList<Clause>();
-    for (Clause clause : clauses) {
-      if (clause.contains(literal)) {
-        removable.add(clause);
+  private void unsatisfy(int literal) {
+    for (int c : occurrenceLists[code(literal)]) {
+      if (--trueLiterals[c] == 0) {
+        for (int i = start[c]; i < start[c + 1]; i++) {
+          occurrences[code(arena[i])]++;
+        }
       }
     }
-    clauses.removeAll(removable);
+  }
 
-    for (Clause clause : clauses) {
-      clause.resolve(literal);
+  private static int code(int literal) {
+    return literal > 0 ? 2 * literal : -2 * literal + 1;
+  }
+
+  private void addWatch(int literal, int clause) {
+    int code = code(literal);
+    int[] list = watches[code];
+    if (list == null) {
+      list = watches[code] = new int[INITIAL_WATCHES];
+    } else if (watchCount[code] == list.length) {
+      list = watches[code] = Arrays.copyOf(list, list.length * 2);
     }
+    list[watchCount[code]++] = clause;
+  }
+
+  /**
+   * Arena holding a clause, the one read or the learned one
+   */
+  private int[] literalsOf(int c) {
+    return c < numberOfOriginalClauses ? arena : learnedArena;
+  }
+
+  private int beginOf(int c) {
+    return c < numberOfOriginalClauses ? start[c] : learnedStart[c - numberOfOriginalClauses];
+  }
+
+  private int endOf(int c) {
+    return c < numberOfOriginalClauses ? start[c + 1] : learnedStart[c - numberOfOriginalClauses + 1];
+  }
+
+  int getNumberOfVariables() {
+    return numberOfVariables;
+  }
+
+  boolean containsEmptyClause() {
+    return hasEmptyClause;
   }
 
   /**
-   * Returns the pure literal if found
+   * Literals of the clauses that have only one
    * @return
    */
-  Literal findPureLiteral() {
-    Set<Literal> mySet = new TreeSet<Literal>();
-    List<Literal> diff = new ArrayList<Literal>();
+  List<Integer> getUnits() {
+    return units;
+  }
 
-    for (Clause clause : clauses) {
-      List<Literal> literals = clause.getLiterals();
-      for (Literal atom : literals) {
-        if(mySet.add(atom)) {
-          diff.add(atom);
-        } else {
-          if(diff.contains(atom)) {
-            continue;
+  /**
+   * Value of a literal: 1 if true, -1 if false and 0 if unassigned
+   * @param literal
+   * @return
+   */
+  int valueOf(int literal) {
+    return literal > 0 ? values[literal] : -values[-literal];
+  }
+
+  /**
+   * Polarity of the first occurrence of a variable, as a literal
+   * @param var
+   * @return
+   */
+  int preferredLiteral(int var) {
+    return phase[var] < 0 ? -var : var;
+  }
+
+  /**
+   * Sets the heuristic told about conflicts and backtracking
+   * @param heuristic
+   */
+  void setHeuristic(BranchingHeuristic heuristic) {
+    this.heuristic = heuristic;
+  }
+
+  int getClauseSize(int c) {
+    return endOf(c) - beginOf(c);
+  }
+
+  /**
+   * Literal k of an indexed clause
+   * @param c
+   * @param k
+   * @return
+   */
+  int getLiteral(int c, int k) {
+    return literalsOf(c)[beginOf(c) + k];
+  }
+
+  int getDecisionLevel() {
+    return level;
+  }
+
+  /**
+   * Number of variables assigned
+   * @return
+   */
+  int getNumberOfAssigned() {
+    return trailSize;
+  }
+
+  /**
+   * Number of clauses read that contain a literal
+   * @param literal
+   * @return
+   */
+  int countOccurrences(int literal) {
+    return literalCounts[code(literal)];
+  }
+
+  /**
+   * Opens a new decision level without assigning anything, so that the
+   * literals enqueued next, such as the assumptions of a cube, are undone
+   * together by backtracking below it
+   */
+  void openLevel() {
+    levelStart[level++] = trailSize;
+  }
+
+  /**
+   * Opens a new decision level and makes the literal true in it
+   * @param literal an unassigned literal
+   */
+  void decide(int literal) {
+    levelStart[level++] = trailSize;
+    assign(literal, NO_REASON);
+  }
+
+  /**
+   * Makes the literal true at the current level unless it is already assigned
+   * @param literal
+   * @return false if the literal is already false
+   */
+  boolean enqueue(int literal) {
+    int value = valueOf(literal);
+    if (value == 0) {
+      assign(literal, NO_REASON);
+    }
+    return value >= 0;
+  }
+
+  private void assign(int literal, int clause) {
+    int var = Math.abs(literal);
+    values[var] = literal > 0 ? 1 : -1;
+    reason[var] = clause;
+    levelOf[var] = level;
+    trail[trailSize++] = literal;
+    if (occurrenceLists != null) {
+      satisfy(literal);
+    }
+  }
+
+  /**
+   * Undoes every assignment made above the given decision level
+   * @param toLevel
+   */
+  void backtrack(int toLevel) {
+    if (level <= toLevel) {
+      return;
+    }
+    int first = levelStart[toLevel];
+    for (int i = trailSize - 1; i >= first; i--) {
+      int var = Math.abs(trail[i]);
+      if (heuristic != null) {
+        heuristic.unassigned(var, values[var]);
+      }
+      if (occurrenceLists != null) {
+        unsatisfy(trail[i]);
+      }
+      values[var] = 0;
+    }
+    trailSize = first;
+    propagated = first;
+    level = toLevel;
+  }
+
+  /**
+   * Finds the literals of the variables that only occur with one sign
+   * in the clauses read
+   * @return
+   */
+  List<Integer> findPureLiterals() {
+    List<Integer> pure = new ArrayList<Integer>();
+    for (int var = 1; var <= numberOfVariables; var++) {
+      int positive = occurrences[code(var)];
+      int negative = occurrences[code(-var)];
+      if ((positive == 0) != (negative == 0)) {
+        pure.add(positive > 0 ? var : -var);
+      }
+    }
+    return pure;
+  }
+
+  /**
+   * Propagates the assignments of the trail not propagated yet: every
+   * literal that becomes the last non false literal of a clause is made
+   * true, visiting only the clauses that watch a literal made false.
+   * @return false if a clause became false, true otherwise
+   */
+  boolean propagate() {
+    conflict = NO_REASON;
+    while (propagated < trailSize) {
+      int falseLiteral = -trail[propagated++];
+      int code = code(falseLiteral);
+      int[] list = watches[code];
+      int count = watchCount[code];
+      int kept = 0;
+      int i = 0;
+      while (i < count) {
+        int c = list[i++];
+        int[] literals = literalsOf(c);
+        int begin = beginOf(c);
+        int w0 = begin + watch0[c];
+        int w1 = begin + watch1[c];
+        boolean first = literals[w0] == falseLiteral;
+        int other = first ? literals[w1] : literals[w0];
+        if (valueOf(other) > 0) {
+          list[kept++] = c;
+          continue;
+        }
+
+        // look for another literal that is not false to watch
+        int replacement = -1;
+        for (int k = begin, end = endOf(c); k < end; k++) {
+          if (k != w0 && k != w1 && valueOf(literals[k]) >= 0) {
+            replacement = k;
+            break;
+          }
+        }
+        if (replacement >= 0) {
+          if (first) {
+            watch0[c] = replacement - begin;
           } else {
-            diff.remove(atom.negative());
+            watch1[c] = replacement - begin;
+          }
+          addWatch(literals[replacement], c);
+          continue;
+        }
+
+        list[kept++] = c;
+        if (valueOf(other) < 0) {
+          // conflict, keep the watches not visited yet
+          while (i < count) {
+            list[kept++] = list[i++];
           }
+          watchCount[code] = kept;
+          conflict = c;
+          return false;
         }
+        // unit clause, the other watched literal must be true
+        assign(other, c);
       }
+      watchCount[code] = kept;
     }
-    if (!diff.isEmpty()) {
-      return diff.get(0);
+    return true;
+  }
+
+  /**
+   * Analyzes the last conflict into a learned clause by resolving the
+   * conflicting clause with the reasons of the literals of the current
+   * level, in reverse trail order, until one literal of that level is left
+   * (the first unique implication point). The learned clause holds the
+   * negation of that literal first and a literal of the highest level
+   * below it second; learn adds it once the search has jumped back.
+   * @return the level to jump back to, where the clause becomes unit
+   */
+  int analyzeConflict() {
+    learnedSize = 1;
+    int pending = 0;
+    int implied = 0;
+    int index = trailSize - 1;
+    int c = conflict;
+
+    do {
+      bumpClause(c);
+      int[] literals = literalsOf(c);
+      for (int i = beginOf(c), end = endOf(c); i < end; i++) {
+        int lit = literals[i];
+        int var = Math.abs(lit);
+        if (lit == implied || seen[var] || levelOf[var] == 0) {
+          continue;
+        }
+        seen[var] = true;
+        if (heuristic != null) {
+          heuristic.bump(var);
+        }
+        if (levelOf[var] == level) {
+          pending++;
+        } else {
+          learned[learnedSize++] = lit;
+        }
+      }
+      while (!seen[Math.abs(trail[index])]) {
+        index--;
+      }
+      implied = trail[index--];
+      c = reason[Math.abs(implied)];
+      seen[Math.abs(implied)] = false;
+      pending--;
+    } while (pending > 0);
+    learned[0] = -implied;
+
+    int highest = 1;
+    for (int i = 0; i < learnedSize; i++) {
+      seen[Math.abs(learned[i])] = false;
+      if (i > 1 && levelOf[Math.abs(learned[i])] > levelOf[Math.abs(learned[highest])]) {
+        highest = i;
+      }
+    }
+    decayClauses();
+    if (heuristic != null) {
+      heuristic.decay();
+    }
+    if (learnedSize == 1) {
+      return 0;
+    }
+    int swap = learned[1];
+    learned[1] = learned[highest];
+    learned[highest] = swap;
+    return levelOf[Math.abs(learned[1])];
+  }
+
+  /**
+   * Number of literals of the clause of the last analyzeConflict
+   * @return
+   */
+  int getLearnedClauseSize() {
+    return learnedSize;
+  }
+
+  /**
+   * Copy of the clause of the last analyzeConflict
+   * @return
+   */
+  int[] copyLearnedClause() {
+    return Arrays.copyOf(learned, learnedSize);
+  }
+
+  /**
+   * Reports the variables of the last conflicting clause to the heuristic,
+   * for the search that backtracks without analyzing conflicts
+   */
+  void bumpConflict() {
+    if (heuristic == null) {
+      return;
+    }
+    int[] literals = literalsOf(conflict);
+    for (int i = beginOf(conflict), end = endOf(conflict); i < end; i++) {
+      heuristic.bump(Math.abs(literals[i]));
+    }
+    heuristic.decay();
+  }
+
+  /**
+   * Adds the clause of the last analyzeConflict after backjumping and
+   * assigns its first literal, which is the only one not false
+   */
+  void learn() {
+    if (learnedSize == 1) {
+      assign(learned[0], NO_REASON);
+      return;
+    }
+    int c = addLearned(learned, learnedSize);
+    bumpClause(c);
+    assign(learned[0], c);
+  }
+
+  /**
+   * Adds a clause implied by the clauses read, such as one learned by the
+   * search of another fork. Must be called at level 0: the literals false
+   * there are left out and a clause with one literal left assigns it.
+   * @param clause
+   * @return false if every literal of the clause is false
+   */
+  boolean addSharedClause(int[] clause) {
+    int size = 0;
+    for (int lit : clause) {
+      int value = valueOf(lit);
+      if (value > 0) {
+        return true;
+      }
+      if (value == 0) {
+        learned[size++] = lit;
+      }
+    }
+    learnedSize = 0;
+    if (size == 0) {
+      return false;
+    }
+    if (size == 1) {
+      assign(learned[0], NO_REASON);
+    } else {
+      addLearned(learned, size);
+    }
+    return true;
+  }
+
+  /**
+   * Appends a clause to the learned arena, watching its first two literals
+   * @return the number of the clause
+   */
+  private int addLearned(int[] literals, int size) {
+    int c = numberOfClauses++;
+    int l = c - numberOfOriginalClauses;
+    if (c == watch0.length) {
+      int capacity = Math.max(16, c * 2);
+      watch0 = Arrays.copyOf(watch0, capacity);
+      watch1 = Arrays.copyOf(watch1, capacity);
+      activity = Arrays.copyOf(activity, capacity);
+    }
+    if (l + 1 == learnedStart.length) {
+      learnedStart = Arrays.copyOf(learnedStart, learnedStart.length * 2);
     }
-    return null;
+    if (learnedArenaSize + size > learnedArena.length) {
+      learnedArena = Arrays.copyOf(learnedArena,
+          Math.max(learnedArena.length * 2, learnedArenaSize + size));
+    }
+    System.arraycopy(literals, 0, learnedArena, learnedArenaSize, size);
+    learnedStart[l] = learnedArenaSize;
+    learnedArenaSize += size;
+    learnedStart[l + 1] = learnedArenaSize;
+    watch0[c] = 0;
+    watch1[c] = 1;
+    activity[c] = 0;
+    addWatch(literals[0], c);
+    addWatch(literals[1], c);
+    return c;
+  }
+
+  int getNumberOfClauses() {
+    return numberOfClauses;
   }
 
-  void addClause(Clause clause) {
-    this.clauses.add(clause);
+  int getNumberOfOriginalClauses() {
+    return numberOfOriginalClauses;
   }
 
-  List<Clause> getClauses() {
-    return this.clauses;
+  int getNumberOfLearnedClauses() {
+    return numberOfClauses - numberOfOriginalClauses;
   }
 
-  void addAtom(Literal atom) {
-    if (!atoms.contains(atom) && !atoms.contains(atom.negative())) {
-      this.atoms.add(atom);
+  private void bumpClause(int c) {
+    if (c < numberOfOriginalClauses) {
+      return;
+    }
+    activity[c] += activityIncrement;
+    if (activity[c] > 1e20) {
+      for (int i = numberOfOriginalClauses; i < numberOfClauses; i++) {
+        activity[i] *= 1e-20;
+      }
+      activityIncrement *= 1e-20;
     }
   }
 
-  Literal getAtom() {
-    return atoms.toArray(new Literal[0])[0];
+  private void decayClauses() {
+    activityIncrement /= CLAUSE_DECAY;
   }
 
-  Set<Literal> getAtoms() {
-    return this.atoms;
+  /**
+   * Deletes the less active half of the learned clauses, keeping the
+   * binary ones. Only called at level 0, where no learned clause is the
+   * reason of an assignment that conflict analysis could still visit, so
+   * the remaining clauses can be moved down the learned arena, renumbered
+   * and the watch lists rebuilt.
+   */
+  void reduceLearnedClauses() {
+    int learnedClauses = getNumberOfLearnedClauses();
+    if (level != 0 || learnedClauses == 0) {
+      return;
+    }
+    double[] sorted = Arrays.copyOfRange(activity, numberOfOriginalClauses, numberOfClauses);
+    Arrays.sort(sorted);
+    double median = sorted[learnedClauses / 2];
+
+    int kept = numberOfOriginalClauses;
+    int write = 0;
+    for (int c = numberOfOriginalClauses; c < numberOfClauses; c++) {
+      int begin = beginOf(c);
+      int size = endOf(c) - begin;
+      if (size == 2 || activity[c] >= median) {
+        System.arraycopy(learnedArena, begin, learnedArena, write, size);
+        learnedStart[kept - numberOfOriginalClauses] = write;
+        watch0[kept] = watch0[c];
+        watch1[kept] = watch1[c];
+        activity[kept] = activity[c];
+        write += size;
+        kept++;
+      }
+    }
+    numberOfClauses = kept;
+    learnedStart[kept - numberOfOriginalClauses] = write;
+    learnedArenaSize = write;
+
+    Arrays.fill(watchCount, 0);
+    for (int c = 0; c < numberOfClauses; c++) {
+      addWatch(getLiteral(c, watch0[c]), c);
+      addWatch(getLiteral(c, watch1[c]), c);
+    }
+    for (int i = 0; i < trailSize; i++) {
+      reason[Math.abs(trail[i])] = NO_REASON;
+    }
   }
 }
@@ -0,0 +1,86 @@
+package ps2;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Heuristic whose variable order is fixed before the search from scores
+ * of the original clauses. Decisions take the first unassigned variable
+ * of the order from a cursor that backtracking moves back, so a decision
+ * is O(1) amortized instead of a scan of the clauses left.
+ */
+public abstract class StaticHeuristic implements BranchingHeuristic {
+  private int[] order;
+  private int[] rank;
+  private int[] polarity;
+  private int cursor;
+
+  /**
+   * Scores of the positive and negative literal of every variable,
+   * as two arrays indexed by variable
+   * @param prop
+   * @return
+   */
+  abstract double[][] literalScores(PropositionSet prop);
+
+  /**
+   * Combines the scores of the two literals of a variable, higher first
+   * @param positive
+   * @param negative
+   * @return
+   */
+  abstract double variableScore(double positive, double negative);
+
+  @Override
+  public void initialize(PropositionSet prop) {
+    int n = prop.getNumberOfVariables();
+    double[][] scores = literalScores(prop);
+    final double[] score = new double[n + 1];
+    polarity = new int[n + 1];
+    Integer[] vars = new Integer[n];
+    for (int var = 1; var <= n; var++) {
+      vars[var - 1] = var;
+      score[var] = variableScore(scores[0][var], scores[1][var]);
+      if (scores[0][var] != scores[1][var]) {
+        polarity[var] = scores[0][var] > scores[1][var] ? var : -var;
+      } else {
+        polarity[var] = prop.preferredLiteral(var);
+      }
+    }
+    // stable, so equal scores keep the variable order
+    Arrays.sort(vars, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer v1, Integer v2) {
+        return Double.compare(score[v2], score[v1]);
+      }
+    });
+    order = new int[n];
+    rank = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      order[i] = vars[i];
+      rank[vars[i]] = i;
+    }
+    cursor = 0;
+  }
+
+  @Override
+  public int nextLiteral(PropositionSet prop) {
+    while (cursor < order.length && prop.valueOf(order[cursor]) != 0) {
+      cursor++;
+    }
+    return cursor < order.length ? polarity[order[cursor]] : 0;
+  }
+
+  @Override
+  public void bump(int var) {
+  }
+
+  @Override
+  public void decay() {
+  }
+
+  @Override
+  public void unassigned(int var, int value) {
+    cursor = Math.min(cursor, rank[var]);
+  }
+}
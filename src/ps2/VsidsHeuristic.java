@@ -0,0 +1,164 @@
+package ps2;
+
+import java.util.Random;
+
+/**
+ * Variable state independent decaying sum. Every variable has an activity
+ * that is bumped when it takes part in a conflict, and older bumps count
+ * less and less because the bump itself grows after every conflict. The
+ * unassigned variables are kept in a binary max heap on the activity, so
+ * a decision and a bump are O(log n). A decided variable takes the value
+ * it had when it was last unassigned.
+ * The value tried first for a variable never assigned and the initial
+ * order of the variables can be changed, so that solvers working on the
+ * same clauses explore different parts of the search space.
+ */
+public class VsidsHeuristic implements BranchingHeuristic {
+  private static final double DECAY = 0.95;
+  private static final double RESCALE_LIMIT = 1e100;
+  // initial activities stay below the first bump
+  private static final double NOISE = 1e-3;
+
+  private double[] activity;
+  private double increment = 1;
+  private int[] savedPhase;
+  // heap of variables and the index of each variable in it, -1 if absent
+  private int[] heap;
+  private int[] position;
+  private int size;
+  private int initialPhase;
+  private Random random;
+
+  /**
+   * Value tried first for a variable never assigned: 1 or -1, or 0 for
+   * the sign of its first occurrence in the clauses
+   * @param initialPhase
+   */
+  void setInitialPhase(int initialPhase) {
+    this.initialPhase = initialPhase;
+  }
+
+  /**
+   * Starts the variables with small random activities drawn from the seed
+   * instead of the variable order
+   * @param seed
+   */
+  void setSeed(long seed) {
+    this.random = new Random(seed);
+  }
+
+  @Override
+  public void initialize(PropositionSet prop) {
+    int n = prop.getNumberOfVariables();
+    activity = new double[n + 1];
+    savedPhase = new int[n + 1];
+    heap = new int[n];
+    position = new int[n + 1];
+    size = 0;
+    position[0] = -1;
+    for (int var = 1; var <= n; var++) {
+      if (initialPhase != 0) {
+        savedPhase[var] = initialPhase;
+      } else {
+        savedPhase[var] = prop.preferredLiteral(var) > 0 ? 1 : -1;
+      }
+      if (random != null) {
+        activity[var] = random.nextDouble() * NOISE;
+      }
+      position[var] = -1;
+      insert(var);
+    }
+  }
+
+  @Override
+  public int nextLiteral(PropositionSet prop) {
+    while (size > 0) {
+      int var = removeMax();
+      if (prop.valueOf(var) == 0) {
+        return savedPhase[var] > 0 ? var : -var;
+      }
+    }
+    return 0;
+  }
+
+  @Override
+  public void bump(int var) {
+    activity[var] += increment;
+    if (activity[var] > RESCALE_LIMIT) {
+      for (int i = 1; i < activity.length; i++) {
+        activity[i] /= RESCALE_LIMIT;
+      }
+      increment /= RESCALE_LIMIT;
+    }
+    if (position[var] >= 0) {
+      siftUp(position[var]);
+    }
+  }
+
+  @Override
+  public void decay() {
+    increment /= DECAY;
+  }
+
+  @Override
+  public void unassigned(int var, int value) {
+    savedPhase[var] = value;
+    if (position[var] < 0) {
+      insert(var);
+    }
+  }
+
+  private void insert(int var) {
+    heap[size] = var;
+    position[var] = size;
+    siftUp(size++);
+  }
+
+  private int removeMax() {
+    int top = heap[0];
+    position[top] = -1;
+    int last = heap[--size];
+    if (size > 0) {
+      heap[0] = last;
+      position[last] = 0;
+      siftDown(0);
+    }
+    return top;
+  }
+
+  private void siftUp(int i) {
+    int var = heap[i];
+    while (i > 0) {
+      int parent = (i - 1) >> 1;
+      if (activity[heap[parent]] >= activity[var]) {
+        break;
+      }
+      heap[i] = heap[parent];
+      position[heap[i]] = i;
+      i = parent;
+    }
+    heap[i] = var;
+    position[var] = i;
+  }
+
+  private void siftDown(int i) {
+    int var = heap[i];
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= size) {
+        break;
+      }
+      if (child + 1 < size && activity[heap[child + 1]] > activity[heap[child]]) {
+        child++;
+      }
+      if (activity[heap[child]] <= activity[var]) {
+        break;
+      }
+      heap[i] = heap[child];
+      position[heap[i]] = i;
+      i = child;
+    }
+    heap[i] = var;
+    position[var] = i;
+  }
+}
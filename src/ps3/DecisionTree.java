@@ -77,13 +77,22 @@ public class DecisionTree {
   }
 
   void initiateDecisionTree() {
+    ChoiceNode root = buildDecisionTree();
+    
+    //call the predictor
+    predictDecision(root);
+  }
+
+  /**
+   * Builds the whole tree and computes the expected utilities
+   * @return the root choice node
+   */
+  ChoiceNode buildDecisionTree() {
     List<Integer> reviewerList = new ArrayList<Integer>();
     ChoiceNode root = new ChoiceNode(true, -1, reviewerList, 1, new ArrayList<Boolean>());
     recursiveDecisionTree(root);
     root.calculateUtility();
-    
-    //call the predictor
-    predictDecision(root);
+    return root;
   }
 
   private void recursiveDecisionTree(INode node) {
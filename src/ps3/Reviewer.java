@@ -15,6 +15,14 @@ public class Reviewer {
     this.p_f  = p_f;
   }
 
+  /**
+   * Restarts the ids at 0. Ids index the reviewer list of a tree,
+   * so this must be called before the reviewers of another tree are created.
+   */
+  static void resetIds() {
+    s_id = 0;
+  }
+
   public int getId() {
     return id;
   }
@@ -0,0 +1,57 @@
+package ps1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Targets of the generated instances, which grow with N squared
+ */
+public class InstanceGeneratorTest {
+  private static final int LARGE_N = 100000;
+
+  @Test
+  public void targetsOfLargeInstanceFitInInt() {
+    InstanceGenerator generator = new InstanceGenerator(LARGE_N, 42);
+    generator.setEdgeDensity(0);
+    ProblemInstance instance = generator.generate();
+
+    assertEquals(LARGE_N, instance.getTasks().size());
+    assertTrue(instance.getTargetValue() > 0);
+    assertTrue(instance.getTargetDeadline() > 0);
+    assertTrue(instance.getMaxFrontierSize() >= 3);
+  }
+
+  @Test
+  public void writtenLargeInstanceReadsBack() throws Exception {
+    InstanceGenerator generator = new InstanceGenerator(LARGE_N, 7);
+    generator.setShape(InstanceGenerator.Shape.CHAIN);
+    File file = File.createTempFile("instance", ".txt");
+    file.deleteOnExit();
+    generator.write(file.getPath());
+
+    ProblemInstance written = ProblemInstance.read(file.getPath());
+    ProblemInstance generated = generator.generate();
+    assertTrue(written.getTargetValue() > 0);
+    assertTrue(written.getTargetDeadline() > 0);
+    assertEquals(generated.getTargetValue(), written.getTargetValue());
+    assertEquals(generated.getTargetDeadline(), written.getTargetDeadline());
+    assertEquals(2 * (LARGE_N - 1), written.getDependencies().size());
+  }
+
+  @Test
+  public void targetsOfSmallInstanceAreAroundHalfOfTotal() {
+    int N = 20;
+    for (long seed = 0; seed < 50; seed++) {
+      ProblemInstance instance = new InstanceGenerator(N, seed).generate();
+      // uniform values and times up to N - 1 have a total of N * N / 2
+      double half = N * N / 4.0;
+      double spread = half * 2 / Math.sqrt(N);
+      assertTrue(Math.abs(instance.getTargetValue() - half) <= spread + 1);
+      assertTrue(Math.abs(instance.getTargetDeadline() - half) <= spread + 1);
+    }
+  }
+}
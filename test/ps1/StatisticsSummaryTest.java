@@ -0,0 +1,97 @@
+package ps1;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Concurrent adds and merges of run summaries
+ */
+public class StatisticsSummaryTest {
+  private static final int ROUNDS = 500;
+  private static final int MERGES = 20;
+
+  private static Statistics run(int states, boolean success) {
+    Statistics stat = new Statistics();
+    stat.setNumberOfStates(states);
+    stat.setIsSuccess(success);
+    return stat;
+  }
+
+  @Test
+  public void mergeCombinesCountsAndMetrics() {
+    StatisticsSummary a = new StatisticsSummary();
+    StatisticsSummary b = new StatisticsSummary();
+    for (int i = 1; i <= 10; i++) {
+      a.add(run(i, i % 2 == 0));
+      b.add(run(10 + i, true));
+    }
+    a.merge(b);
+
+    assertEquals(20, a.getNumberOfRuns());
+    assertEquals(15, a.getNumberOfSuccess());
+    assertEquals(20, a.getStates().getCount());
+    assertEquals(1, a.getStates().getMin());
+    assertEquals(20, a.getStates().getMax());
+    assertEquals(10.5, a.getStates().getMean(), 1e-9);
+    assertEquals(10, b.getNumberOfRuns());
+  }
+
+  @Test(timeout = 60000)
+  public void summariesMergedIntoEachOtherDoNotDeadlock() throws Exception {
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    for (int round = 0; round < ROUNDS; round++) {
+      final StatisticsSummary a = new StatisticsSummary();
+      final StatisticsSummary b = new StatisticsSummary();
+      a.add(run(1, true));
+      b.add(run(2, false));
+      Thread ab = new Merger(a, b, failure);
+      Thread ba = new Merger(b, a, failure);
+      ab.start();
+      ba.start();
+      ab.join(10000);
+      ba.join(10000);
+      assertFalse(ab.isAlive() || ba.isAlive());
+      assertNull(failure.get());
+      checkConsistent(a);
+      checkConsistent(b);
+    }
+  }
+
+  /**
+   * Merges one summary into another, each merge doubling at most the runs
+   */
+  private static class Merger extends Thread {
+    private final StatisticsSummary into;
+    private final StatisticsSummary from;
+    private final AtomicReference<Throwable> failure;
+
+    Merger(StatisticsSummary into, StatisticsSummary from, AtomicReference<Throwable> failure) {
+      this.into = into;
+      this.from = from;
+      this.failure = failure;
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (int i = 0; i < MERGES; i++) {
+          into.merge(from);
+          checkConsistent(into);
+        }
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      }
+    }
+  }
+
+  private static void checkConsistent(StatisticsSummary summary) {
+    synchronized (summary) {
+      assertEquals(summary.getNumberOfRuns(), summary.getStates().getCount());
+    }
+  }
+}
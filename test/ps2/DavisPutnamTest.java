@@ -0,0 +1,263 @@
+package ps2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Every mode of the solver against brute force on small random clauses.
+ * A satisfiable answer must come with a model of the clauses, and an
+ * unsatisfiable one must be confirmed by trying every assignment.
+ */
+public class DavisPutnamTest {
+  private static final long SEED = 42;
+  private static final int INSTANCES = 500;
+  private static final int MAX_VARIABLES = 12;
+  // every restart base with both the Luby and the geometric policy
+  private static final int PORTFOLIO_SOLVERS = 4;
+  // threads solving the cubes, which make up to 32 cubes
+  private static final int CUBE_THREADS = 2;
+  // holes of the pigeonhole clauses, enough conflicts to delete learned clauses
+  private static final int PIGEONHOLES = 6;
+
+  /**
+   * One mode of the solver
+   */
+  private interface Solver {
+    /**
+     * @param prop
+     * @return the solver holding the model, whose valuation is empty if
+     * the clauses cannot be satisfied
+     */
+    DavisPutnam solve(PropositionSet prop);
+  }
+
+  @Test
+  public void dpllAgreesWithBruteForce() {
+    check(new Solver() {
+      @Override
+      public DavisPutnam solve(PropositionSet prop) {
+        DavisPutnam dp = new DavisPutnam();
+        dp.evaluate(prop);
+        return dp;
+      }
+    });
+  }
+
+  @Test
+  public void dpllWithoutPureLiteralsAgreesWithBruteForce() {
+    check(new Solver() {
+      @Override
+      public DavisPutnam solve(PropositionSet prop) {
+        DavisPutnam dp = new DavisPutnam();
+        dp.setPureLiterals(false);
+        dp.evaluate(prop);
+        return dp;
+      }
+    });
+  }
+
+  @Test
+  public void cdclAgreesWithBruteForce() {
+    check(new Solver() {
+      @Override
+      public DavisPutnam solve(PropositionSet prop) {
+        DavisPutnam dp = new DavisPutnam();
+        dp.evaluateCDCL(prop);
+        return dp;
+      }
+    });
+  }
+
+  @Test
+  public void everyHeuristicAgreesWithBruteForce() {
+    for (final Branching branching : Branching.values()) {
+      check(new Solver() {
+        @Override
+        public DavisPutnam solve(PropositionSet prop) {
+          DavisPutnam dp = new DavisPutnam();
+          dp.setBranching(branching);
+          dp.evaluate(prop);
+          return dp;
+        }
+      });
+      check(new Solver() {
+        @Override
+        public DavisPutnam solve(PropositionSet prop) {
+          DavisPutnam dp = new DavisPutnam();
+          dp.setBranching(branching);
+          dp.evaluateCDCL(prop);
+          return dp;
+        }
+      });
+    }
+  }
+
+  @Test
+  public void portfolioAgreesWithBruteForce() {
+    check(new Solver() {
+      @Override
+      public DavisPutnam solve(PropositionSet prop) {
+        return new Portfolio(PORTFOLIO_SOLVERS).solve(prop);
+      }
+    });
+    // long enough for the solvers to exchange learned clauses
+    DavisPutnam dp = new Portfolio(PORTFOLIO_SOLVERS).solve(pigeonholes(PIGEONHOLES + 1, PIGEONHOLES));
+    assertTrue(dp.getValidation().isEmpty());
+  }
+
+  @Test
+  public void cubeAndConquerAgreesWithBruteForce() {
+    for (final boolean pureLiterals : new boolean[] {true, false}) {
+      check(new Solver() {
+        @Override
+        public DavisPutnam solve(PropositionSet prop) {
+          CubeAndConquer cc = new CubeAndConquer(CUBE_THREADS);
+          cc.setPureLiterals(pureLiterals);
+          return cc.solve(prop);
+        }
+      });
+    }
+    CubeAndConquer cc = new CubeAndConquer(CUBE_THREADS);
+    DavisPutnam dp = cc.solve(pigeonholes(PIGEONHOLES + 1, PIGEONHOLES));
+    assertTrue(dp.getValidation().isEmpty());
+    assertTrue(cc.getNumberOfCubes() > 1);
+  }
+
+  @Test
+  public void cdclDeletesLearnedClausesOnPigeonholes() {
+    // n + 1 pigeons never fit in n holes, which takes many conflicts
+    PropositionSet prop = pigeonholes(PIGEONHOLES + 1, PIGEONHOLES);
+    DavisPutnam dp = new DavisPutnam();
+    assertFalse(dp.evaluateCDCL(prop));
+    assertTrue(dp.getValidation().isEmpty());
+    assertTrue(prop.getNumberOfLearnedClauses() < dp.getNumberOfConflicts());
+
+    List<int[]> clauses = new ArrayList<int[]>();
+    prop = pigeonholes(PIGEONHOLES, PIGEONHOLES, clauses);
+    dp = new DavisPutnam();
+    assertTrue(dp.evaluateCDCL(prop));
+    assertTrue(satisfies(clauses, dp.getValidation(), PIGEONHOLES * PIGEONHOLES));
+  }
+
+  private static PropositionSet pigeonholes(int pigeons, int holes) {
+    return pigeonholes(pigeons, holes, new ArrayList<int[]>());
+  }
+
+  /**
+   * Every pigeon in a hole and no two pigeons in the same hole
+   * @param pigeons
+   * @param holes
+   * @param clauses receives the clauses added
+   * @return
+   */
+  private static PropositionSet pigeonholes(int pigeons, int holes, List<int[]> clauses) {
+    for (int i = 0; i < pigeons; i++) {
+      int[] clause = new int[holes];
+      for (int h = 0; h < holes; h++) {
+        clause[h] = i * holes + h + 1;
+      }
+      clauses.add(clause);
+    }
+    for (int h = 0; h < holes; h++) {
+      for (int i = 0; i < pigeons; i++) {
+        for (int j = i + 1; j < pigeons; j++) {
+          clauses.add(new int[] {-(i * holes + h + 1), -(j * holes + h + 1)});
+        }
+      }
+    }
+    return toPropositionSet(clauses);
+  }
+
+  private static PropositionSet toPropositionSet(List<int[]> clauses) {
+    PropositionSet prop = new PropositionSet();
+    for (int[] clause : clauses) {
+      for (int literal : clause) {
+        prop.addLiteral(literal);
+      }
+      prop.endClause();
+    }
+    return prop;
+  }
+
+  private static void check(Solver solver) {
+    Random r = new Random(SEED);
+    int satisfiable = 0;
+    for (int i = 0; i < INSTANCES; i++) {
+      int variables = 3 + r.nextInt(MAX_VARIABLES - 2);
+      List<int[]> clauses = randomClauses(variables, 1 + r.nextInt(6 * variables), r);
+      PropositionSet prop = toPropositionSet(clauses);
+
+      List<Literal> valuation = solver.solve(prop).getValidation();
+      if (valuation.isEmpty()) {
+        assertTrue("instance " + i + " has a model", !bruteForce(clauses, variables));
+      } else {
+        assertTrue("instance " + i + " model", satisfies(clauses, valuation, variables));
+        satisfiable++;
+      }
+    }
+    // the instances must exercise both answers
+    assertTrue(satisfiable > 0 && satisfiable < INSTANCES);
+  }
+
+  /**
+   * Clauses of one to four literals, which may repeat a variable
+   */
+  private static List<int[]> randomClauses(int variables, int count, Random r) {
+    List<int[]> clauses = new ArrayList<int[]>();
+    for (int i = 0; i < count; i++) {
+      int[] clause = new int[1 + r.nextInt(4)];
+      for (int k = 0; k < clause.length; k++) {
+        int var = r.nextInt(variables) + 1;
+        clause[k] = r.nextBoolean() ? var : -var;
+      }
+      clauses.add(clause);
+    }
+    return clauses;
+  }
+
+  private static boolean satisfies(List<int[]> clauses, List<Literal> valuation, int variables) {
+    int[] value = new int[variables + 1];
+    for (Literal literal : valuation) {
+      int l = literal.getLiteral();
+      assertEquals("variable assigned twice", 0, value[Math.abs(l)]);
+      value[Math.abs(l)] = l > 0 ? 1 : -1;
+    }
+    for (int[] clause : clauses) {
+      boolean satisfied = false;
+      for (int l : clause) {
+        satisfied |= value[Math.abs(l)] == (l > 0 ? 1 : -1);
+      }
+      if (!satisfied) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean bruteForce(List<int[]> clauses, int variables) {
+    for (long model = 0; model < 1L << variables; model++) {
+      boolean all = true;
+      for (int[] clause : clauses) {
+        boolean satisfied = false;
+        for (int l : clause) {
+          satisfied |= ((model >> (Math.abs(l) - 1)) & 1) == (l > 0 ? 1 : 0);
+        }
+        if (!satisfied) {
+          all = false;
+          break;
+        }
+      }
+      if (all) {
+        return true;
+      }
+    }
+    return false;
+  }
+}